@@ -0,0 +1,105 @@
+package io.github.tkote.fn.eventrouter.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.github.tkote.fn.eventrouter.EventRouter;
+import io.github.tkote.fn.eventrouter.ReflectiveBeanDefinition;
+import io.github.tkote.fn.eventrouter.benchmark.handler.Echo;
+import io.github.tkote.fn.eventrouter.benchmark.handler.LiteralRoutes;
+import io.github.tkote.fn.eventrouter.benchmark.handler.RegexRoutes;
+import io.github.tkote.fn.eventrouter.logging.Logging;
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.OutputEvent;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+import com.fnproject.fn.api.tracing.TracingContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EventRouter.handleRequest dispatch with N handlers registered.
+ * The requested route is the last registered one.
+ * Fn keeps FnBeans in a static map, so there must be exactly one router per JVM - keep fork > 0.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    static final String LOGGING = "io.github.tkote.fn.eventrouter.level=WARNING";
+
+    @State(Scope.Benchmark)
+    public static class Routes {
+        @Param({"1", "10", "50"})
+        public int handlers;
+
+        @Param({"literal", "regex"})
+        public String routes;
+
+        EventRouter router;
+        InputEvent inputEvent;
+        HTTPGatewayContext hctx;
+        TracingContext tctx;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            Logging.update(LOGGING);
+            final Class<?> bean = routes.equals("literal") ? LiteralRoutes.class : RegexRoutes.class;
+            router = new EventRouter();
+            router.setUp(Fakes.runtimeContext(Map.of()), List.of(new LimitedBeanDefinition(bean, handlers)));
+            final String url = routes.equals("literal")
+                ? String.format("/fn/literal/r%02d", handlers - 1)
+                : String.format("/regex/r%02d/123", handlers - 1);
+            inputEvent = Fakes.inputEvent(new byte[0], Headers.emptyHeaders());
+            hctx = Fakes.httpGatewayContext("GET", url, Headers.emptyHeaders());
+            tctx = Fakes.tracingContext();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Body {
+        EventRouter router;
+        InputEvent inputEvent;
+        HTTPGatewayContext hctx;
+        TracingContext tctx;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            Logging.update(LOGGING);
+            router = new EventRouter();
+            router.setUp(Fakes.runtimeContext(Map.of()), List.of(new ReflectiveBeanDefinition(Echo.class)));
+            final byte[] body = "{\"id\":1,\"name\":\"echo\",\"description\":\"benchmark\",\"tags\":[\"a\",\"b\"]}"
+                .getBytes(StandardCharsets.UTF_8);
+            inputEvent = Fakes.inputEvent(body, Headers.emptyHeaders());
+            hctx = Fakes.httpGatewayContext("POST", "/fn/echo", Headers.emptyHeaders());
+            tctx = Fakes.tracingContext();
+        }
+    }
+
+    @Benchmark
+    public OutputEvent dispatch(Routes state) {
+        return state.router.handleRequest(state.inputEvent, state.hctx, state.tctx);
+    }
+
+    @Benchmark
+    public OutputEvent dispatchWithJsonBody(Body state) {
+        return state.router.handleRequest(state.inputEvent, state.hctx, state.tctx);
+    }
+
+}
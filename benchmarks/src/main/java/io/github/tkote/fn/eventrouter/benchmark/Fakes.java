@@ -0,0 +1,100 @@
+package io.github.tkote.fn.eventrouter.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.QueryParameters;
+import com.fnproject.fn.api.RuntimeContext;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+import com.fnproject.fn.api.tracing.TracingContext;
+
+/**
+ * In-memory FDK contexts, so that the router can be driven without the FDK runtime.
+ * Built on dynamic proxies - methods not listed here return null/empty/false/0.
+ */
+public class Fakes {
+
+    public static RuntimeContext runtimeContext(Map<String, String> config){
+        return proxy(RuntimeContext.class, (p, m, args) -> {
+            switch(m.getName()){
+                case "getAppID": return "benchmark-app-id";
+                case "getFunctionID": return "benchmark-fn-id";
+                case "getAppName": return "benchmark";
+                case "getFunctionName": return "router";
+                case "getConfiguration": return config;
+                case "getConfigurationByKey": return Optional.ofNullable(config.get((String)args[0]));
+                default: return defaultValue(m.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public static InputEvent inputEvent(byte[] body, Headers headers){
+        final Instant deadline = Instant.now().plusSeconds(3600);
+        return proxy(InputEvent.class, (p, m, args) -> {
+            switch(m.getName()){
+                case "consumeBody": return ((Function<InputStream, Object>)args[0]).apply(new ByteArrayInputStream(body));
+                case "getHeaders": return headers;
+                case "getCallID": return "benchmark-call";
+                case "getDeadline": return deadline;
+                default: return defaultValue(m.getReturnType());
+            }
+        });
+    }
+
+    public static HTTPGatewayContext httpGatewayContext(String method, String requestURL, Headers headers){
+        final QueryParameters queryParameters = proxy(QueryParameters.class, (p, m, args) -> {
+            switch(m.getName()){
+                case "get": return Optional.empty();
+                case "getValues": return Collections.emptyList();
+                case "getAll": return Collections.emptyMap();
+                default: return defaultValue(m.getReturnType());
+            }
+        });
+        return proxy(HTTPGatewayContext.class, (p, m, args) -> {
+            switch(m.getName()){
+                case "getMethod": return method;
+                case "getRequestURL": return requestURL;
+                case "getHeaders": return headers;
+                case "getQueryParameters": return queryParameters;
+                default: return defaultValue(m.getReturnType());
+            }
+        });
+    }
+
+    public static TracingContext tracingContext(){
+        return proxy(TracingContext.class, (p, m, args) -> defaultValue(m.getReturnType()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler){
+        return (T)Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[]{type}, (p, m, args) -> {
+            if(m.getDeclaringClass() == Object.class){
+                switch(m.getName()){
+                    case "equals": return p == args[0];
+                    case "hashCode": return System.identityHashCode(p);
+                    default: return type.getSimpleName() + "(fake)";
+                }
+            }
+            return handler.invoke(p, m, args);
+        });
+    }
+
+    private static Object defaultValue(Class<?> type){
+        if(type == Optional.class) return Optional.empty();
+        if(type == boolean.class || type == Boolean.class) return false;
+        if(type == int.class) return 0;
+        if(type == long.class) return 0L;
+        return null;
+    }
+
+}
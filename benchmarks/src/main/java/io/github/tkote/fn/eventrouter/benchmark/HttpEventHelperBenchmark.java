@@ -0,0 +1,96 @@
+package io.github.tkote.fn.eventrouter.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.github.tkote.fn.eventrouter.HttpEventHelper;
+import io.github.tkote.fn.eventrouter.benchmark.handler.Payload;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.OutputEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request body decoding and JSON response creation of HttpEventHelper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpEventHelperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class InputBody {
+        // approximate body size in bytes
+        @Param({"1024", "65536", "1048576"})
+        public int size;
+
+        InputEvent inputEvent;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final StringBuilder description = new StringBuilder(size);
+            while(description.length() < size) description.append("0123456789abcdef");
+            final String json = String.format("{\"id\":1,\"name\":\"payload\",\"description\":\"%s\",\"tags\":[\"a\",\"b\"]}", description);
+            inputEvent = Fakes.inputEvent(json.getBytes(StandardCharsets.UTF_8), Headers.emptyHeaders());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Output {
+        @Param({"1", "100", "10000"})
+        public int rows;
+
+        List<Payload> payloads;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            payloads = new ArrayList<>(rows);
+            for(int i = 0 ; i < rows ; i++){
+                payloads.add(new Payload(i, "name-" + i, "description of row " + i, List.of("a", "b", "c")));
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] inputAsBytes(InputBody state) {
+        return HttpEventHelper.getInputBody(state.inputEvent, byte[].class);
+    }
+
+    @Benchmark
+    public String inputAsString(InputBody state) {
+        return HttpEventHelper.getInputBody(state.inputEvent, String.class);
+    }
+
+    @Benchmark
+    public Payload inputAsPojo(InputBody state) {
+        return HttpEventHelper.getInputBody(state.inputEvent, Payload.class);
+    }
+
+    @Benchmark
+    public JsonNode inputAsJsonNode(InputBody state) {
+        return HttpEventHelper.getInputBody(state.inputEvent, JsonNode.class);
+    }
+
+    @Benchmark
+    public OutputEvent createJsonOutputEvent(Output state) {
+        return HttpEventHelper.createJsonOutputEvent(state.payloads);
+    }
+
+}
@@ -0,0 +1,73 @@
+package io.github.tkote.fn.eventrouter.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import io.github.tkote.fn.eventrouter.EventRouter;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.benchmark.handler.Echo;
+import io.github.tkote.fn.eventrouter.benchmark.handler.LiteralRoutes;
+import io.github.tkote.fn.eventrouter.benchmark.handler.Payload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calling a handler method: the MethodHandle invoker of EventRouter.Handler
+ * against reflective Method.invoke (the baseline before the invoker was introduced).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Target {
+        // noargs - LiteralRoutes#r00(), body - Echo#echo(Payload)
+        @Param({"noargs", "body"})
+        public String handler;
+
+        EventRouter.Handler h;
+        Object[] args;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            final Method method;
+            final Object bean;
+            if(handler.equals("noargs")){
+                bean = new LiteralRoutes();
+                method = LiteralRoutes.class.getMethod("r00");
+                args = new Object[0];
+            }else{
+                bean = new Echo();
+                method = Echo.class.getMethod("echo", Payload.class);
+                args = new Object[]{ new Payload() };
+            }
+            h = new EventRouter.Handler(bean, method, method.getAnnotation(FnHttpEvent.class), new ObjectMapper());
+        }
+    }
+
+    @Benchmark
+    public Object methodHandle(Target state) throws Throwable {
+        return (Object)state.h.invoker.invokeExact(state.args);
+    }
+
+    @Benchmark
+    public Object reflection(Target state) throws Exception {
+        return state.h.method.invoke(state.h.obj, state.args);
+    }
+
+}
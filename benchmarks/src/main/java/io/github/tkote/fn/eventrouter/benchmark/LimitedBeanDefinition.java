@@ -0,0 +1,28 @@
+package io.github.tkote.fn.eventrouter.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.github.tkote.fn.eventrouter.ReflectiveBeanDefinition;
+
+// registers only the first n handler methods (by name) of a bean
+public class LimitedBeanDefinition extends ReflectiveBeanDefinition {
+
+    private final int limit;
+
+    public LimitedBeanDefinition(Class<?> clazz, int limit){
+        super(clazz);
+        this.limit = limit;
+    }
+
+    @Override
+    public List<Method> getHandlerMethods(){
+        return super.getHandlerMethods().stream()
+            .sorted(Comparator.comparing(Method::getName))
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,34 @@
+package io.github.tkote.fn.eventrouter.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.github.tkote.fn.eventrouter.EventRouter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold initialization - EventRouter.setUp in a fresh JVM, one shot per fork.
+ * Scans all FnBeans of this module (Jandex index, or generated definitions if present).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class SetUpBenchmark {
+
+    @Benchmark
+    public EventRouter coldSetUp() throws Exception {
+        final EventRouter router = new EventRouter();
+        router.setUp(Fakes.runtimeContext(Map.of("LOGGING", DispatchBenchmark.LOGGING)));
+        return router;
+    }
+
+}
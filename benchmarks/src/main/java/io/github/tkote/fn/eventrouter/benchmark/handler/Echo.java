@@ -0,0 +1,15 @@
+package io.github.tkote.fn.eventrouter.benchmark.handler;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+
+// body binding + json serialization
+@FnBean
+public class Echo{
+
+    @FnHttpEvent(method = "POST", path = ".*/echo")
+    public Payload echo(Payload payload) {
+        return payload;
+    }
+
+}
@@ -0,0 +1,260 @@
+package io.github.tkote.fn.eventrouter.benchmark.handler;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+
+// 50 handlers with literal suffix paths, resolved by the route trie
+@FnBean
+public class LiteralRoutes{
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r00", outputType = "text")
+    public String r00() {
+        return "r00";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r01", outputType = "text")
+    public String r01() {
+        return "r01";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r02", outputType = "text")
+    public String r02() {
+        return "r02";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r03", outputType = "text")
+    public String r03() {
+        return "r03";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r04", outputType = "text")
+    public String r04() {
+        return "r04";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r05", outputType = "text")
+    public String r05() {
+        return "r05";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r06", outputType = "text")
+    public String r06() {
+        return "r06";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r07", outputType = "text")
+    public String r07() {
+        return "r07";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r08", outputType = "text")
+    public String r08() {
+        return "r08";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r09", outputType = "text")
+    public String r09() {
+        return "r09";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r10", outputType = "text")
+    public String r10() {
+        return "r10";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r11", outputType = "text")
+    public String r11() {
+        return "r11";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r12", outputType = "text")
+    public String r12() {
+        return "r12";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r13", outputType = "text")
+    public String r13() {
+        return "r13";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r14", outputType = "text")
+    public String r14() {
+        return "r14";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r15", outputType = "text")
+    public String r15() {
+        return "r15";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r16", outputType = "text")
+    public String r16() {
+        return "r16";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r17", outputType = "text")
+    public String r17() {
+        return "r17";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r18", outputType = "text")
+    public String r18() {
+        return "r18";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r19", outputType = "text")
+    public String r19() {
+        return "r19";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r20", outputType = "text")
+    public String r20() {
+        return "r20";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r21", outputType = "text")
+    public String r21() {
+        return "r21";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r22", outputType = "text")
+    public String r22() {
+        return "r22";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r23", outputType = "text")
+    public String r23() {
+        return "r23";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r24", outputType = "text")
+    public String r24() {
+        return "r24";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r25", outputType = "text")
+    public String r25() {
+        return "r25";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r26", outputType = "text")
+    public String r26() {
+        return "r26";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r27", outputType = "text")
+    public String r27() {
+        return "r27";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r28", outputType = "text")
+    public String r28() {
+        return "r28";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r29", outputType = "text")
+    public String r29() {
+        return "r29";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r30", outputType = "text")
+    public String r30() {
+        return "r30";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r31", outputType = "text")
+    public String r31() {
+        return "r31";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r32", outputType = "text")
+    public String r32() {
+        return "r32";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r33", outputType = "text")
+    public String r33() {
+        return "r33";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r34", outputType = "text")
+    public String r34() {
+        return "r34";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r35", outputType = "text")
+    public String r35() {
+        return "r35";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r36", outputType = "text")
+    public String r36() {
+        return "r36";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r37", outputType = "text")
+    public String r37() {
+        return "r37";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r38", outputType = "text")
+    public String r38() {
+        return "r38";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r39", outputType = "text")
+    public String r39() {
+        return "r39";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r40", outputType = "text")
+    public String r40() {
+        return "r40";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r41", outputType = "text")
+    public String r41() {
+        return "r41";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r42", outputType = "text")
+    public String r42() {
+        return "r42";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r43", outputType = "text")
+    public String r43() {
+        return "r43";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r44", outputType = "text")
+    public String r44() {
+        return "r44";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r45", outputType = "text")
+    public String r45() {
+        return "r45";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r46", outputType = "text")
+    public String r46() {
+        return "r46";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r47", outputType = "text")
+    public String r47() {
+        return "r47";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r48", outputType = "text")
+    public String r48() {
+        return "r48";
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/literal/r49", outputType = "text")
+    public String r49() {
+        return "r49";
+    }
+
+}
@@ -0,0 +1,51 @@
+package io.github.tkote.fn.eventrouter.benchmark.handler;
+
+import java.util.List;
+
+public class Payload{
+    private long id;
+    private String name;
+    private String description;
+    private List<String> tags;
+
+    public Payload(){}
+
+    public Payload(long id, String name, String description, List<String> tags){
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.tags = tags;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
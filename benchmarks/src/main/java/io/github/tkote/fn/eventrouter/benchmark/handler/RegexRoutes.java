@@ -0,0 +1,260 @@
+package io.github.tkote.fn.eventrouter.benchmark.handler;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+
+// 50 handlers with dynamic paths, evaluated as regular expressions
+@FnBean
+public class RegexRoutes{
+
+    @FnHttpEvent(method = "GET", path = "/regex/r00/[0-9]+", outputType = "text")
+    public String r00() {
+        return "r00";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r01/[0-9]+", outputType = "text")
+    public String r01() {
+        return "r01";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r02/[0-9]+", outputType = "text")
+    public String r02() {
+        return "r02";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r03/[0-9]+", outputType = "text")
+    public String r03() {
+        return "r03";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r04/[0-9]+", outputType = "text")
+    public String r04() {
+        return "r04";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r05/[0-9]+", outputType = "text")
+    public String r05() {
+        return "r05";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r06/[0-9]+", outputType = "text")
+    public String r06() {
+        return "r06";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r07/[0-9]+", outputType = "text")
+    public String r07() {
+        return "r07";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r08/[0-9]+", outputType = "text")
+    public String r08() {
+        return "r08";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r09/[0-9]+", outputType = "text")
+    public String r09() {
+        return "r09";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r10/[0-9]+", outputType = "text")
+    public String r10() {
+        return "r10";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r11/[0-9]+", outputType = "text")
+    public String r11() {
+        return "r11";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r12/[0-9]+", outputType = "text")
+    public String r12() {
+        return "r12";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r13/[0-9]+", outputType = "text")
+    public String r13() {
+        return "r13";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r14/[0-9]+", outputType = "text")
+    public String r14() {
+        return "r14";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r15/[0-9]+", outputType = "text")
+    public String r15() {
+        return "r15";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r16/[0-9]+", outputType = "text")
+    public String r16() {
+        return "r16";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r17/[0-9]+", outputType = "text")
+    public String r17() {
+        return "r17";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r18/[0-9]+", outputType = "text")
+    public String r18() {
+        return "r18";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r19/[0-9]+", outputType = "text")
+    public String r19() {
+        return "r19";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r20/[0-9]+", outputType = "text")
+    public String r20() {
+        return "r20";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r21/[0-9]+", outputType = "text")
+    public String r21() {
+        return "r21";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r22/[0-9]+", outputType = "text")
+    public String r22() {
+        return "r22";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r23/[0-9]+", outputType = "text")
+    public String r23() {
+        return "r23";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r24/[0-9]+", outputType = "text")
+    public String r24() {
+        return "r24";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r25/[0-9]+", outputType = "text")
+    public String r25() {
+        return "r25";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r26/[0-9]+", outputType = "text")
+    public String r26() {
+        return "r26";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r27/[0-9]+", outputType = "text")
+    public String r27() {
+        return "r27";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r28/[0-9]+", outputType = "text")
+    public String r28() {
+        return "r28";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r29/[0-9]+", outputType = "text")
+    public String r29() {
+        return "r29";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r30/[0-9]+", outputType = "text")
+    public String r30() {
+        return "r30";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r31/[0-9]+", outputType = "text")
+    public String r31() {
+        return "r31";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r32/[0-9]+", outputType = "text")
+    public String r32() {
+        return "r32";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r33/[0-9]+", outputType = "text")
+    public String r33() {
+        return "r33";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r34/[0-9]+", outputType = "text")
+    public String r34() {
+        return "r34";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r35/[0-9]+", outputType = "text")
+    public String r35() {
+        return "r35";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r36/[0-9]+", outputType = "text")
+    public String r36() {
+        return "r36";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r37/[0-9]+", outputType = "text")
+    public String r37() {
+        return "r37";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r38/[0-9]+", outputType = "text")
+    public String r38() {
+        return "r38";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r39/[0-9]+", outputType = "text")
+    public String r39() {
+        return "r39";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r40/[0-9]+", outputType = "text")
+    public String r40() {
+        return "r40";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r41/[0-9]+", outputType = "text")
+    public String r41() {
+        return "r41";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r42/[0-9]+", outputType = "text")
+    public String r42() {
+        return "r42";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r43/[0-9]+", outputType = "text")
+    public String r43() {
+        return "r43";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r44/[0-9]+", outputType = "text")
+    public String r44() {
+        return "r44";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r45/[0-9]+", outputType = "text")
+    public String r45() {
+        return "r45";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r46/[0-9]+", outputType = "text")
+    public String r46() {
+        return "r46";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r47/[0-9]+", outputType = "text")
+    public String r47() {
+        return "r47";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r48/[0-9]+", outputType = "text")
+    public String r48() {
+        return "r48";
+    }
+
+    @FnHttpEvent(method = "GET", path = "/regex/r49/[0-9]+", outputType = "text")
+    public String r49() {
+        return "r49";
+    }
+
+}
@@ -1,11 +1,22 @@
 package io.github.tkote.fn.example.handler;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Logger;
 
 import io.github.tkote.fn.eventrouter.annotation.FnBean;
 import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnInject;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+import io.github.tkote.fn.eventrouter.Deadline;
 import io.github.tkote.fn.eventrouter.HttpEventHelper;
+import io.github.tkote.fn.eventrouter.HttpResponse;
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+import io.github.tkote.fn.example.util.HttpClientUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fnproject.fn.api.InputEvent;
@@ -13,36 +24,26 @@ import com.fnproject.fn.api.OutputEvent;
 import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
 import com.fnproject.fn.api.tracing.TracingContext;
 
-import org.apache.http.HttpEntity;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
-
 @FnBean
 public class Forward{
     private final static Logger logger = Logger.getLogger(Forward.class.getName());
 
-    private RequestConfig requestConfig = RequestConfig.custom()
-        .setConnectTimeout(5000)
-        .setConnectionRequestTimeout(30000)
-        .setSocketTimeout(30000)
-        .build();
+    // pooled, shared across requests
+    private final HttpClientUtil httpClient;
+
+    @FnInject
+    public Forward(HttpClientUtil httpClient){
+        this.httpClient = httpClient;
+    }
 
     @FnHttpEvent(method="POST", path=".*/forward")
-    public OutputEvent handleRequest(InputEvent inputEvent, HTTPGatewayContext hctx, TracingContext tctx) {
+    public OutputEvent handleRequest(InputEvent inputEvent, HTTPGatewayContext hctx, TracingContext tctx, Deadline deadline) {
 
-        try (CloseableHttpClient httpclient = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build()) {
+        try {
             String inputData = HttpEventHelper.getInputBodyAsString(inputEvent);
             logger.info(inputData);
             // mwthod, url, data
-            ObjectMapper mapper = new ObjectMapper();
+            ObjectMapper mapper = HttpEventHelper.getObjectMapper();
             JsonNode json = mapper.readTree(inputData);
             String url = json.get("url").asText();
             String m = json.get("method").asText();
@@ -50,48 +51,83 @@ public class Forward{
             logger.fine("url: " + url);
             logger.fine("method: " + m);
             logger.fine("body:\n" + body);
-    
-            HttpUriRequest request = null;
-            if (m.equalsIgnoreCase("GET")) {
-                HttpGet requestGet = new HttpGet(url);
-                request = requestGet;
-            } else if (m.equalsIgnoreCase("POST")) {
-                HttpPost requestPost = new HttpPost(url);
-                requestPost.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
-                request = requestPost;
-            } else {
+
+            byte[] requestBody = null;
+            String requestType = null;
+            if (m.equalsIgnoreCase("POST")) {
+                requestBody = body.getBytes(StandardCharsets.UTF_8);
+                requestType = "application/json";
+            } else if (!m.equalsIgnoreCase("GET")) {
                 throw new RuntimeException("Unsupported method: " + m);
             }
 
-            final HttpUriRequest r = request;
-            r.setHeader("X-B3-Sampled", tctx.isSampled() ? "1" : "0");
-            Optional.ofNullable(tctx.getTraceId()).ifPresent(h -> r.setHeader("X-B3-TraceId", h));
-            Optional.ofNullable(tctx.getParentSpanId()).ifPresent(h -> r.setHeader("X-B3-ParentSpanId", h));
-            Optional.ofNullable(tctx.getSpanId()).ifPresent(h -> r.setHeader("X-B3-SpanId", h));
-            Optional.ofNullable(tctx.getFlags()).ifPresent(h -> r.setHeader("X-B3-Flages", h));
-           
-            try (CloseableHttpResponse response = httpclient.execute(request)) {
-                int status = response.getStatusLine().getStatusCode();
-                logger.fine("Response status code: " + status);
+            final Map<String, String> headers = tracingHeaders(tctx);
 
-                hctx.setStatusCode(status);
-                HttpEntity entity = response.getEntity();
-                if (entity != null) {
-                    byte[] byteBody = EntityUtils.toByteArray(entity);
-                    if (byteBody.length > 0) {
-                        String contentType = response.getLastHeader("Content-Type").getValue();
-                        logger.fine("Content-Type: " + contentType);
-                        return OutputEvent.fromBytes(byteBody, OutputEvent.Status.Success, contentType);
-                    }
+            try {
+                // timeouts within the remaining budget, and the deadline is propagated to the upstream
+                HttpClientUtil.Response response = httpClient.execute(m, url, requestBody, requestType, headers, deadline);
+                logger.fine("Response status code: " + response.status);
+
+                hctx.setStatusCode(response.status);
+                if (response.body.length > 0) {
+                    logger.fine("Content-Type: " + response.contentType);
+                    return OutputEvent.fromBytes(response.body, OutputEvent.Status.Success,
+                        Optional.ofNullable(response.contentType).orElse("application/octet-stream"));
                 }
                 return OutputEvent.emptyResult(OutputEvent.Status.Success);
+            }catch(HttpStatusException e){
+                throw e; // 503 (circuit open, bulkhead full) or 504 as is
             }catch(Exception e){
                 throw new RuntimeException("Failed to send request - " + e.getMessage(), e);
             }
+        } catch (HttpStatusException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Couldn't forward message - " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Proxy mode - the request body is streamed to the upstream (url query parameter) as is,
+     * and the upstream response is streamed back with its status and content type.
+     * Neither body is held in memory, so large payloads cost constant memory.
+     */
+    @FnHttpEvent(method="ANY", path=".*/proxy")
+    public HttpResponse proxy(InputStream body, HTTPGatewayContext hctx, TracingContext tctx, Deadline deadline,
+            @FnQueryParam("url") String url) throws IOException {
+        if (url == null) {
+            throw new HttpStatusException(400, "Missing query parameter: url");
+        }
+        final String method = hctx.getMethod();
+        final boolean hasBody = !(method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD") || method.equalsIgnoreCase("DELETE"));
+        final String contentType = hctx.getHeaders().get("Content-Type").orElse(null);
+        logger.fine("Proxy: " + method + " " + url);
+
+        final HttpClientUtil.StreamingResponse response = httpClient.open(method, url, hasBody ? body : null, contentType, tracingHeaders(tctx), deadline);
+        // written after the handler returns - the upstream connection and the bulkhead permit are released
+        // when the copy completes or fails (and by HttpClientUtil if the response is never written)
+        try {
+            logger.fine("Response status code: " + response.status);
+            return HttpResponse.streamingResponse(out -> {
+                try (response) {
+                    response.body.transferTo(out);
+                }
+            }, Optional.ofNullable(response.contentType).orElse("application/octet-stream"), response.status);
+        } catch (RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    private static Map<String, String> tracingHeaders(TracingContext tctx){
+        final Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("X-B3-Sampled", tctx.isSampled() ? "1" : "0");
+        Optional.ofNullable(tctx.getTraceId()).ifPresent(h -> headers.put("X-B3-TraceId", h));
+        Optional.ofNullable(tctx.getParentSpanId()).ifPresent(h -> headers.put("X-B3-ParentSpanId", h));
+        Optional.ofNullable(tctx.getSpanId()).ifPresent(h -> headers.put("X-B3-SpanId", h));
+        Optional.ofNullable(tctx.getFlags()).ifPresent(h -> headers.put("X-B3-Flages", h));
+        return headers;
+    }
    
 
 }
\ No newline at end of file
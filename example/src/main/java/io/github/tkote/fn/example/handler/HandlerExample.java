@@ -1,10 +1,16 @@
 package io.github.tkote.fn.example.handler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import io.github.tkote.fn.eventrouter.annotation.FnBean;
 import io.github.tkote.fn.eventrouter.annotation.FnInit;
 import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.FanOut;
 import io.github.tkote.fn.eventrouter.HttpEventHelper;
 import com.fnproject.fn.api.InputEvent;
 import com.fnproject.fn.api.RuntimeContext;
@@ -66,11 +72,27 @@ public class HandlerExample{
     }
 
     @FnHttpEvent(method = "GET", path = ".*/sleep")
-    public void sleep(InputEvent inputEvent, HTTPGatewayContext hctx) {
-        String duration = hctx.getQueryParameters().get("duration").orElse("1000");
+    public void sleep(@FnQueryParam(value = "duration", defaultValue = "1000") long duration, Deadline deadline) {
         try{
-            TimeUnit.MILLISECONDS.sleep(Long.parseLong(duration));
+            // no longer than the caller waits
+            TimeUnit.MILLISECONDS.sleep(Math.min(duration, deadline.remainingMillis()));
         }catch(InterruptedException e){}
+        deadline.check();
+    }
+
+    // n sleeps run concurrently - takes one duration, not n
+    @FnHttpEvent(method = "GET", path = ".*/fanout")
+    public List<Long> fanOut(FanOut fanOut, @FnQueryParam(value = "n", defaultValue = "3") int n,
+            @FnQueryParam(value = "duration", defaultValue = "1000") long duration) throws Exception {
+        final List<Callable<Long>> calls = new ArrayList<>();
+        for(int i = 0 ; i < n ; i++){
+            calls.add(() -> {
+                final long start = System.currentTimeMillis();
+                TimeUnit.MILLISECONDS.sleep(duration);
+                return System.currentTimeMillis() - start;
+            });
+        }
+        return fanOut.all(calls);
     }
 
 }
\ No newline at end of file
@@ -1,73 +1,176 @@
 package io.github.tkote.fn.example.handler;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.HashMap;
-import java.util.List;
+import java.sql.Types;
 import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Logger;
-import java.util.ArrayList;
 
 import io.github.tkote.fn.eventrouter.annotation.FnBean;
 import io.github.tkote.fn.eventrouter.annotation.FnInit;
 import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
-import io.github.tkote.fn.eventrouter.Fn;
+import io.github.tkote.fn.eventrouter.annotation.FnInject;
 import io.github.tkote.fn.eventrouter.HttpEventHelper;
+import io.github.tkote.fn.eventrouter.HttpResponse;
 import io.github.tkote.fn.example.util.DatabaseUtil;
-import com.fnproject.fn.api.OutputEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fnproject.fn.api.RuntimeContext;
-import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
 
 @FnBean
 public class Query{
     private final static Logger logger = Logger.getLogger(Query.class.getName());
 
+    private final DatabaseUtil dbUtil;
     private Map<String, String> config;
     private boolean enabled;
+    private int fetchSize;
+
+    @FnInject
+    public Query(DatabaseUtil dbUtil){
+        this.dbUtil = dbUtil;
+    }
 
     @FnInit
     public void onInit(RuntimeContext rctx){
         config = rctx.getConfiguration();
         enabled = Boolean.parseBoolean(config.getOrDefault("QUERY_ENABLED", "true"));
+        // rows per round trip - the driver default (10 for Oracle) makes large results chatty
+        fetchSize = Integer.parseInt(config.getOrDefault("QUERY_FETCH_SIZE", "500"));
     }
 
+    /**
+     * The rows are written to the response as they are fetched, so memory use does not grow with the result.
+     * The statement is executed here (errors are 500 with ErrorResponse), and the connection is
+     * closed after the last row has been written - or when the response is discarded without being written.
+     */
     @FnHttpEvent(method="POST", path=".*/query")
-    public OutputEvent handleRequest(QueryRequest request, HTTPGatewayContext hctx) {
+    public HttpResponse handleRequest(QueryRequest request) {
         if(!enabled){
             logger.fine("Query is not enabled.");
-            hctx.setStatusCode(503);
-            return HttpEventHelper.createJsonOutputEvent(new ErrorResponse("Query is not enabled.", 503));
+            return HttpResponse.jsonResponse(new ErrorResponse("Query is not enabled.", 503), 503);
         }
-        logger.fine("Query: " + request.statement);
-        DatabaseUtil dbUtil = Fn.getFnBean(DatabaseUtil.class);
-        try(Connection conn = dbUtil.getConnection()){
-            try(Statement statement = conn.createStatement()){
-                ResultSet resultSet = statement.executeQuery(request.getStatement());
-                List<HashMap<String, Object>> recordList = convertResultSetToList(resultSet);
-                return HttpEventHelper.createJsonOutputEvent(recordList);
-            }
-        }catch(Exception e){
+        final String sql = request.getStatement();
+        if(Objects.isNull(sql) || sql.trim().isEmpty()){
+            return HttpResponse.jsonResponse(new ErrorResponse("No statement.", 400), 400);
+        }
+        logger.fine("Query: " + sql);
+        Connection conn = null;
+        Statement statement = null;
+        try{
+            conn = dbUtil.getConnection();
+            statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            final ResultSet resultSet = statement.executeQuery(sql);
+            final Connection c = conn;
+            final Statement st = statement;
+            return HttpResponse.streamingResponse(out -> {
+                try(c; st; resultSet){
+                    writeResultSet(resultSet, out);
+                }catch(SQLException e){
+                    // the status has been sent already - the response is cut short
+                    logger.info("Query error while writing rows: " + e.getMessage());
+                    throw new IOException("Couldn't write rows - " + e.getMessage(), e);
+                }
+            }, "application/json", () -> close(resultSet, st, c));
+        }catch(SQLException e){
             logger.info("Query error: " + e.getMessage());
-            hctx.setStatusCode(500);
-            return HttpEventHelper.createJsonOutputEvent(new ErrorResponse(e.getMessage(), 500));
+            close(statement, conn);
+            return HttpResponse.jsonResponse(new ErrorResponse(e.getMessage(), 500), 500);
         }
     }
 
-    private List<HashMap<String,Object>> convertResultSetToList(ResultSet rs) throws SQLException {
-        ResultSetMetaData md = rs.getMetaData();
-        int columns = md.getColumnCount();
-        List<HashMap<String,Object>> list = new ArrayList<HashMap<String,Object>>();
-        while (rs.next()) {
-            HashMap<String,Object> row = new HashMap<String, Object>(columns);
-            for(int i=1; i<=columns; ++i) {
-                row.put(md.getColumnName(i),rs.getObject(i));
+    // closes in the given order, null skipped, errors logged
+    private static void close(AutoCloseable... resources){
+        for(AutoCloseable resource : resources){
+            if(Objects.isNull(resource)) continue;
+            try{
+                resource.close();
+            }catch(Exception e){
+                logger.fine("Couldn't close - " + e.getMessage());
             }
-            list.add(row);
         }
-        return list;
+    }
+
+    // writes the rows as a json array of objects (column name to value, in column order)
+    private void writeResultSet(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        final ResultSetMetaData md = rs.getMetaData();
+        final int columns = md.getColumnCount();
+        // looked up once, not per cell
+        final SerializableString[] names = new SerializableString[columns];
+        final int[] types = new int[columns];
+        for(int i = 0 ; i < columns ; i++){
+            names[i] = new SerializedString(md.getColumnName(i + 1));
+            types[i] = md.getColumnType(i + 1);
+        }
+
+        // the response stream belongs to the FDK - do not close it
+        // nor complete the array on a failure - a truncated result must not look like a complete one
+        try(JsonGenerator generator = HttpEventHelper.getObjectMapper().getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)){
+            generator.writeStartArray();
+            while(rs.next()){
+                generator.writeStartObject();
+                for(int i = 0 ; i < columns ; i++){
+                    generator.writeFieldName(names[i]);
+                    writeValue(generator, rs, i + 1, types[i]);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    // a getter by the column type, without boxing - others as rs.getObject() serialized by the shared ObjectMapper
+    private static void writeValue(JsonGenerator generator, ResultSet rs, int column, int type) throws SQLException, IOException {
+        switch(type){
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                final String str = rs.getString(column);
+                if(Objects.isNull(str)) generator.writeNull(); else generator.writeString(str);
+                return;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                final int i = rs.getInt(column);
+                if(rs.wasNull()) generator.writeNull(); else generator.writeNumber(i);
+                return;
+            case Types.BIGINT:
+                final long l = rs.getLong(column);
+                if(rs.wasNull()) generator.writeNull(); else generator.writeNumber(l);
+                return;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                final BigDecimal d = rs.getBigDecimal(column);
+                if(Objects.isNull(d)) generator.writeNull(); else generator.writeNumber(d);
+                return;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                final double f = rs.getDouble(column);
+                if(rs.wasNull()) generator.writeNull(); else generator.writeNumber(f);
+                return;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                final boolean b = rs.getBoolean(column);
+                if(rs.wasNull()) generator.writeNull(); else generator.writeBoolean(b);
+                return;
+            default:
+                generator.writeObject(rs.getObject(column));
+        }
     }
 
     public static class QueryRequest{
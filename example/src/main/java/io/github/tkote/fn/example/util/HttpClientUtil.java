@@ -0,0 +1,407 @@
+package io.github.tkote.fn.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.FanOut;
+import io.github.tkote.fn.eventrouter.Hedging;
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnInit;
+import io.github.tkote.fn.eventrouter.annotation.FnWarmup;
+import io.github.tkote.fn.eventrouter.resilience.Bulkhead;
+import io.github.tkote.fn.eventrouter.resilience.CircuitBreaker;
+import io.github.tkote.fn.eventrouter.resilience.RetryBudget;
+import com.fnproject.fn.api.RuntimeContext;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Outbound HTTP client shared by the handlers.
+ * One connection pool lives as long as the (hot) function container, so forwarded calls reuse
+ * kept-alive connections instead of paying DNS, TCP and TLS handshakes on every request.
+ * HTTP_CLIENT=jdk switches to java.net.http.HttpClient, which multiplexes requests over HTTP/2
+ * connections when the upstream supports it (HTTP/1.1 otherwise).
+ * Calls by execute() with the HTTP_HEDGE_METHODS are hedged at the latency percentile of their upstream
+ * and retried on failures and 502/503/504, within the retry budget (see Hedging).
+ * Every call goes through the circuit breaker and the bulkhead of its upstream, and fails fast with
+ * HttpStatusException(503) when the upstream is down or saturated instead of waiting for the timeouts.
+ */
+@FnBean
+public class HttpClientUtil{
+    private final static Logger logger = Logger.getLogger(HttpClientUtil.class.getName());
+
+    public static class Response{
+        public final int status;
+        public final String contentType; // null if none
+        public final byte[] body;
+        public Response(int status, String contentType, byte[] body){
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    // response whose body is read from the connection - close it to release the connection
+    // the resource is closed once; a response dropped without being closed is released when it is garbage collected
+    public static class StreamingResponse implements Closeable{
+        private static final Cleaner cleaner = Cleaner.create();
+
+        public final int status;
+        public final String contentType; // null if none
+        public final InputStream body;
+        private final Release release;
+        public StreamingResponse(int status, String contentType, InputStream body, Closeable resource){
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.release = new Release(resource);
+            cleaner.register(this, release);
+        }
+        @Override
+        public void close() throws IOException{
+            release.close();
+        }
+    }
+
+    // must not refer to the StreamingResponse, or it never becomes unreachable
+    private static class Release implements Runnable{
+        private final Closeable resource;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private Release(Closeable resource){
+            this.resource = resource;
+        }
+        private void close() throws IOException{
+            if(closed.compareAndSet(false, true)) resource.close();
+        }
+        @Override
+        public void run(){
+            if(closed.get()) return;
+            logger.warning("StreamingResponse was not closed - released");
+            try{
+                close();
+            }catch(IOException e){
+                logger.fine("Couldn't close - " + e.getMessage());
+            }
+        }
+    }
+
+    // circuit breaker and bulkhead of one scheme://host:port
+    private static class Upstream{
+        private final CircuitBreaker breaker;
+        private final Bulkhead bulkhead;
+        private Upstream(CircuitBreaker breaker, Bulkhead bulkhead){
+            this.breaker = breaker;
+            this.bulkhead = bulkhead;
+        }
+    }
+
+    private int connectTimeout;
+    private int socketTimeout;
+    private int poolTimeout;
+    private String[] preconnect;
+    private Hedging hedging;
+    private Set<String> hedgeMethods;
+    private double breakerFailureRate;
+    private int breakerMinCalls;
+    private Duration breakerWindow;
+    private Duration breakerOpen;
+    private int bulkheadSize;
+    private long bulkheadWait;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    private RequestConfig requestConfig;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient; // apache
+    private java.net.http.HttpClient jdkClient; // jdk
+
+    @FnInit
+    public void onInit(RuntimeContext rctx){
+        final Map<String, String> config = rctx.getConfiguration();
+        connectTimeout = Integer.parseInt(config.getOrDefault("HTTP_CONNECT_TIMEOUT", "5000"));
+        socketTimeout = Integer.parseInt(config.getOrDefault("HTTP_SOCKET_TIMEOUT", "30000"));
+        poolTimeout = Integer.parseInt(config.getOrDefault("HTTP_POOL_TIMEOUT", "30000"));
+        preconnect = Arrays.stream(config.getOrDefault("HTTP_PRECONNECT", "").split(","))
+            .map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+
+        // the budget allows HTTP_RETRY_BUDGET extra attempts per call in the long run, HTTP_RETRY_BURST at once
+        hedging = new Hedging(
+            Double.parseDouble(config.getOrDefault("HTTP_HEDGE_PERCENTILE", "95")),
+            Integer.parseInt(config.getOrDefault("HTTP_HEDGE_MIN_SAMPLES", "20")),
+            Long.parseLong(config.getOrDefault("HTTP_HEDGE_MIN_DELAY", "10")),
+            Integer.parseInt(config.getOrDefault("HTTP_MAX_ATTEMPTS", "2")),
+            new RetryBudget(Double.parseDouble(config.getOrDefault("HTTP_RETRY_BUDGET", "0.1")),
+                Double.parseDouble(config.getOrDefault("HTTP_RETRY_BURST", "10"))));
+        // idempotent methods only by default - add POST if the upstream tolerates duplicates
+        hedgeMethods = Arrays.stream(config.getOrDefault("HTTP_HEDGE_METHODS", "GET,HEAD,OPTIONS").split(","))
+            .map(s -> s.trim().toUpperCase()).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+
+        breakerFailureRate = Double.parseDouble(config.getOrDefault("HTTP_BREAKER_FAILURE_RATE", "50"));
+        breakerMinCalls = Integer.parseInt(config.getOrDefault("HTTP_BREAKER_MIN_CALLS", "10"));
+        breakerWindow = Duration.ofSeconds(Long.parseLong(config.getOrDefault("HTTP_BREAKER_WINDOW", "10")));
+        breakerOpen = Duration.ofSeconds(Long.parseLong(config.getOrDefault("HTTP_BREAKER_OPEN", "5")));
+        bulkheadSize = Integer.parseInt(config.getOrDefault("HTTP_BULKHEAD", config.getOrDefault("HTTP_MAX_PER_ROUTE", "20")));
+        bulkheadWait = Long.parseLong(config.getOrDefault("HTTP_BULKHEAD_WAIT", "0"));
+
+        final String client = config.getOrDefault("HTTP_CLIENT", "apache").trim().toLowerCase();
+        if(client.equals("jdk")){
+            jdkClient = java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+        }else{
+            final long keepAlive = Long.parseLong(config.getOrDefault("HTTP_KEEP_ALIVE", "60"));
+            final long idle = Long.parseLong(config.getOrDefault("HTTP_IDLE_EVICTION", "30"));
+            connectionManager = new PoolingHttpClientConnectionManager(keepAlive, TimeUnit.SECONDS);
+            connectionManager.setMaxTotal(Integer.parseInt(config.getOrDefault("HTTP_MAX_CONNECTIONS", "50")));
+            connectionManager.setDefaultMaxPerRoute(Integer.parseInt(config.getOrDefault("HTTP_MAX_PER_ROUTE", "20")));
+            connectionManager.setValidateAfterInactivity(2000);
+            requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(poolTimeout)
+                .setSocketTimeout(socketTimeout)
+                .build();
+            httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // the server's Keep-Alive timeout if any, otherwise HTTP_KEEP_ALIVE
+                .setKeepAliveStrategy((response, context) -> {
+                    final long ms = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return ms > 0 ? Math.min(ms, keepAlive * 1000) : keepAlive * 1000;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idle, TimeUnit.SECONDS)
+                .build();
+        }
+        logger.fine("HTTP client: " + client);
+    }
+
+    // opens pooled connections to the configured upstreams before the first request
+    @FnWarmup
+    public void warmUp(){
+        for(String url : preconnect){
+            try{
+                final Response response = execute("HEAD", url, null, null, Map.of(), Deadline.after(Duration.ofMillis(connectTimeout)));
+                logger.fine("Preconnected: " + url + " - " + response.status);
+            }catch(Exception e){
+                logger.log(Level.FINE, "Couldn't preconnect: " + url + " - " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends a request and reads the whole response.
+     * The timeouts are bounded by the deadline, which is also propagated to the upstream.
+     * Hedged and retried if the method is one of HTTP_HEDGE_METHODS.
+     */
+    public Response execute(String method, String url, byte[] body, String contentType, Map<String, String> headers, Deadline deadline) throws IOException {
+        final String key = upstreamOf(url);
+        final Upstream upstream = upstream(key);
+        // each attempt takes a bulkhead permit and counts in the circuit - 5xx is a failure of the upstream
+        final Callable<Response> attempt = () -> upstream.bulkhead.execute(
+            () -> upstream.breaker.execute(() -> send(method, url, body, contentType, headers, deadline), r -> r.status >= 500), deadline);
+        try{
+            if(!hedgeMethods.contains(method.toUpperCase())){
+                return attempt.call();
+            }
+            return hedging.execute(key, attempt, r -> r.status == 502 || r.status == 503 || r.status == 504, deadline);
+        }catch(Exception e){
+            throw toIOException(url, e);
+        }
+    }
+
+    private Response send(String method, String url, byte[] body, String contentType, Map<String, String> headers, Deadline deadline) throws IOException {
+        if(Objects.nonNull(jdkClient)){
+            return executeJdk(method, url, body, contentType, headers, deadline);
+        }
+        final RequestBuilder builder = newRequest(method, url, headers, deadline);
+        if(Objects.nonNull(body)){
+            builder.setEntity(new ByteArrayEntity(body, Objects.isNull(contentType) ? null : ContentType.parse(contentType)));
+        }
+
+        // the blocking I/O isn't interruptible - a hedged attempt which lost is aborted, which closes its connection
+        final HttpUriRequest request = builder.build();
+        FanOut.onCancel(request::abort);
+
+        // closing the response returns the connection to the pool
+        try(CloseableHttpResponse response = httpClient.execute(request)){
+            final HttpEntity entity = response.getEntity();
+            final byte[] bytes = Objects.isNull(entity) ? new byte[0] : EntityUtils.toByteArray(entity);
+            final Header type = response.getFirstHeader("Content-Type");
+            return new Response(response.getStatusLine().getStatusCode(), Objects.isNull(type) ? null : type.getValue(), bytes);
+        }
+    }
+
+    /**
+     * Sends a request with the body streamed from the given stream (null if none, chunked otherwise)
+     * and returns as soon as the response headers arrive - neither body is held in memory.
+     * The caller must close the response, which releases the connection and the bulkhead permit.
+     */
+    public StreamingResponse open(String method, String url, InputStream body, String contentType, Map<String, String> headers, Deadline deadline) throws IOException {
+        final Upstream upstream = upstream(upstreamOf(url));
+        try{
+            upstream.bulkhead.acquire(deadline);
+        }catch(InterruptedException e){
+            throw toIOException(url, e);
+        }
+        try{
+            final StreamingResponse response = upstream.breaker.execute(
+                () -> connect(method, url, body, contentType, headers, deadline), r -> r.status >= 500);
+            // the permit is held until the body has been copied
+            return new StreamingResponse(response.status, response.contentType, response.body, () -> {
+                try{
+                    response.close();
+                }finally{
+                    upstream.bulkhead.release();
+                }
+            });
+        }catch(Exception e){
+            upstream.bulkhead.release();
+            throw toIOException(url, e);
+        }
+    }
+
+    private StreamingResponse connect(String method, String url, InputStream body, String contentType, Map<String, String> headers, Deadline deadline) throws IOException {
+        if(Objects.nonNull(jdkClient)){
+            return openJdk(method, url, body, contentType, headers, deadline);
+        }
+        final RequestBuilder builder = newRequest(method, url, headers, deadline);
+        if(Objects.nonNull(body)){
+            builder.setEntity(new InputStreamEntity(body, -1, Objects.isNull(contentType) ? null : ContentType.parse(contentType)));
+        }
+        final CloseableHttpResponse response = httpClient.execute(builder.build());
+        try{
+            final HttpEntity entity = response.getEntity();
+            final Header type = response.getFirstHeader("Content-Type");
+            return new StreamingResponse(response.getStatusLine().getStatusCode(), Objects.isNull(type) ? null : type.getValue(),
+                Objects.isNull(entity) ? InputStream.nullInputStream() : entity.getContent(), response);
+        }catch(IOException | RuntimeException e){
+            response.close();
+            throw e;
+        }
+    }
+
+    // timeouts bounded by the deadline, which is also propagated to the upstream
+    private RequestBuilder newRequest(String method, String url, Map<String, String> headers, Deadline deadline){
+        final RequestBuilder builder = RequestBuilder.create(method.toUpperCase()).setUri(url)
+            .setConfig(RequestConfig.copy(requestConfig)
+                .setConnectTimeout(deadline.timeoutMillis(connectTimeout))
+                .setConnectionRequestTimeout(deadline.timeoutMillis(poolTimeout))
+                .setSocketTimeout(deadline.timeoutMillis(socketTimeout))
+                .build());
+        headers.forEach(builder::setHeader);
+        deadline.propagate(builder::setHeader);
+        return builder;
+    }
+
+    private Response executeJdk(String method, String url, byte[] body, String contentType, Map<String, String> headers, Deadline deadline) throws IOException {
+        final java.net.http.HttpRequest.Builder builder = newJdkRequest(method, url,
+            Objects.isNull(body) ? java.net.http.HttpRequest.BodyPublishers.noBody() : java.net.http.HttpRequest.BodyPublishers.ofByteArray(body),
+            contentType, headers, deadline);
+        try{
+            final java.net.http.HttpResponse<byte[]> response = jdkClient.send(builder.build(), java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+            return new Response(response.statusCode(), response.headers().firstValue("Content-Type").orElse(null), response.body());
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted - " + url, e);
+        }
+    }
+
+    private StreamingResponse openJdk(String method, String url, InputStream body, String contentType, Map<String, String> headers, Deadline deadline) throws IOException {
+        final java.net.http.HttpRequest.Builder builder = newJdkRequest(method, url,
+            Objects.isNull(body) ? java.net.http.HttpRequest.BodyPublishers.noBody() : java.net.http.HttpRequest.BodyPublishers.ofInputStream(() -> body),
+            contentType, headers, deadline);
+        try{
+            final java.net.http.HttpResponse<InputStream> response = jdkClient.send(builder.build(), java.net.http.HttpResponse.BodyHandlers.ofInputStream());
+            return new StreamingResponse(response.statusCode(), response.headers().firstValue("Content-Type").orElse(null), response.body(), response.body());
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted - " + url, e);
+        }
+    }
+
+    private java.net.http.HttpRequest.Builder newJdkRequest(String method, String url, java.net.http.HttpRequest.BodyPublisher publisher,
+            String contentType, Map<String, String> headers, Deadline deadline){
+        final java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofMillis(deadline.timeoutMillis(socketTimeout)))
+            .method(method.toUpperCase(), publisher);
+        if(Objects.nonNull(contentType)){
+            builder.header("Content-Type", contentType);
+        }
+        headers.forEach(builder::setHeader);
+        deadline.propagate(builder::setHeader);
+        return builder;
+    }
+
+    // latencies are recorded per scheme://host:port
+    private static String upstreamOf(String url){
+        final URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    private Upstream upstream(String key){
+        return upstreams.computeIfAbsent(key, k -> new Upstream(
+            new CircuitBreaker(k, breakerFailureRate, breakerMinCalls, breakerWindow, breakerOpen),
+            new Bulkhead(k, bulkheadSize, bulkheadWait)));
+    }
+
+    // HttpStatusException (503/504) and other runtime exceptions as they are
+    private static IOException toIOException(String url, Exception e){
+        if(e instanceof RuntimeException) throw (RuntimeException)e;
+        if(e instanceof IOException) return (IOException)e;
+        if(e instanceof InterruptedException){
+            Thread.currentThread().interrupt();
+            return new IOException("Interrupted - " + url, e);
+        }
+        return new IOException(e.getMessage(), e);
+    }
+
+    public Map<String, Object> getUpstreamStats(){
+        final Map<String, Object> map = new LinkedHashMap<>();
+        upstreams.forEach((key, upstream) -> {
+            final Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("circuit", upstream.breaker.toMap());
+            stats.put("bulkhead", upstream.bulkhead.toMap());
+            map.put(key, stats);
+        });
+        return map;
+    }
+
+    public Map<String, Object> getHedgingStats(){
+        return hedging.toMap();
+    }
+
+    public String getPoolStats(){
+        return Objects.isNull(connectionManager) ? "jdk" : connectionManager.getTotalStats().toString();
+    }
+
+}
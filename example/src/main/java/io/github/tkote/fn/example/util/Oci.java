@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Logger;
 
+import io.github.tkote.fn.eventrouter.HttpEventHelper;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -74,7 +75,7 @@ public class Oci {
     @SuppressWarnings("unchecked")
     public Map<String, String> getSecretAsMap(String region, String secretOcid) throws JsonParseException, JsonMappingException, IOException{
         String secret = getSecret(region, secretOcid);
-        ObjectMapper mapper = new ObjectMapper();
+        ObjectMapper mapper = HttpEventHelper.getObjectMapper();
         return (Map<String, String>) mapper.readValue(secret, Map.class);
     }
 
@@ -0,0 +1,199 @@
+package io.github.tkote.fn.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.RuntimeContext;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+import com.fnproject.fn.api.tracing.TracingContext;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.*;
+
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.HttpResponse;
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+import io.github.tkote.fn.example.handler.Forward;
+import io.github.tkote.fn.example.util.HttpClientUtil;
+
+import static org.junit.Assert.*;
+
+/**
+ * Forward.proxy against a stub upstream, with a bulkhead of 1 so that a permit which is not released fails the next call.
+ */
+public class ForwardTest {
+
+    private HttpServer server;
+    private String url;
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+
+    @Before
+    public void startUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            received.put("method", exchange.getRequestMethod());
+            exchange.getRequestHeaders().forEach((k, v) -> received.put(k.toLowerCase(), v.get(0)));
+            final byte[] body = exchange.getRequestBody().readAllBytes();
+            received.put("length", Integer.toString(body.length));
+            if(exchange.getRequestURI().getPath().endsWith("/down")){
+                final byte[] message = "down".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(503, message.length);
+                exchange.getResponseBody().write(message);
+            }else{
+                exchange.getResponseHeaders().add("Content-Type", "application/x-test");
+                exchange.sendResponseHeaders(201, 0); // chunked
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopUpstream(){
+        server.stop(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler){
+        return (T)Proxy.newProxyInstance(ForwardTest.class.getClassLoader(), new Class<?>[]{ type }, handler);
+    }
+
+    private static Forward forward(String client){
+        final Map<String, String> config = Map.of("HTTP_CLIENT", client, "HTTP_BULKHEAD", "1", "HTTP_BREAKER_MIN_CALLS", "100");
+        final HttpClientUtil httpClient = new HttpClientUtil();
+        httpClient.onInit(proxy(RuntimeContext.class, (p, m, args) -> {
+            if(m.getName().equals("getConfiguration")) return config;
+            throw new UnsupportedOperationException(m.getName());
+        }));
+        return new Forward(httpClient);
+    }
+
+    private static HTTPGatewayContext hctx(String method, String contentType){
+        final Headers headers = Objects.isNull(contentType) ? Headers.emptyHeaders() : Headers.fromMap(Map.of("Content-Type", contentType));
+        return proxy(HTTPGatewayContext.class, (p, m, args) -> {
+            switch(m.getName()){
+                case "getMethod": return method;
+                case "getHeaders": return headers;
+                default: throw new UnsupportedOperationException(m.getName());
+            }
+        });
+    }
+
+    private static TracingContext tctx(){
+        return proxy(TracingContext.class, (p, m, args) -> {
+            switch(m.getName()){
+                case "isSampled": return true;
+                case "getTraceId": return "trace-1";
+                default: return null;
+            }
+        });
+    }
+
+    private static byte[] write(HttpResponse response) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getOutputEvent().writeToOutput(out);
+        return out.toByteArray();
+    }
+
+    private HttpResponse put(Forward forward, byte[] body) throws IOException {
+        return forward.proxy(new ByteArrayInputStream(body), hctx("PUT", "application/octet-stream"), tctx(),
+            Deadline.after(Duration.ofSeconds(10)), url + "/echo");
+    }
+
+    private static byte[] payload(){
+        final byte[] body = new byte[1024 * 1024];
+        for(int i = 0 ; i < body.length ; i++) body[i] = (byte)i;
+        return body;
+    }
+
+    private void testPassThrough(String client) throws Exception {
+        final Forward forward = forward(client);
+        final byte[] body = payload();
+        // twice - the first permit must have been released
+        for(int i = 0 ; i < 2 ; i++){
+            final HttpResponse response = put(forward, body);
+            assertEquals(201, response.getStatus());
+            assertEquals("application/x-test", response.getOutputEvent().getContentType().get());
+            assertArrayEquals(body, write(response));
+        }
+        assertEquals("PUT", received.get("method"));
+        assertEquals(Integer.toString(body.length), received.get("length"));
+        assertEquals("application/octet-stream", received.get("content-type"));
+        assertEquals("trace-1", received.get("x-b3-traceid"));
+        assertEquals("1", received.get("x-b3-sampled"));
+        assertNotNull(received.get(Deadline.HEADER.toLowerCase()));
+    }
+
+    @Test
+    public void testPassThroughApache() throws Exception {
+        testPassThrough("apache");
+    }
+
+    @Test
+    public void testPassThroughJdk() throws Exception {
+        testPassThrough("jdk");
+    }
+
+    @Test
+    public void testUpstreamStatus() throws Exception {
+        final Forward forward = forward("jdk");
+        final HttpResponse response = forward.proxy(null, hctx("GET", null), tctx(), Deadline.NONE, url + "/down");
+        assertEquals(503, response.getStatus());
+        assertEquals("text/plain", response.getOutputEvent().getContentType().get());
+        assertEquals("down", new String(write(response), StandardCharsets.UTF_8));
+        assertEquals("GET", received.get("method"));
+        assertNull(received.get(Deadline.HEADER.toLowerCase()));
+    }
+
+    @Test
+    public void testCopyFailure() throws Exception {
+        final Forward forward = forward("jdk");
+        final HttpResponse response = put(forward, payload());
+        try{
+            response.getOutputEvent().writeToOutput(new OutputStream(){
+                @Override
+                public void write(int b) throws IOException{
+                    throw new IOException("Client went away");
+                }
+            });
+            fail();
+        }catch(IOException e){
+            assertEquals("Client went away", e.getMessage());
+        }
+        assertArrayEquals(new byte[]{ 1 }, write(put(forward, new byte[]{ 1 }))); // the permit has been released
+    }
+
+    @Test
+    public void testNotWritten() throws Exception {
+        final Forward forward = forward("jdk");
+        put(forward, payload()); // dropped without being written
+
+        // released when the response has been garbage collected
+        for(int i = 0 ; i < 100 ; i++){
+            System.gc();
+            try{
+                assertArrayEquals(new byte[]{ 1 }, write(put(forward, new byte[]{ 1 })));
+                return;
+            }catch(HttpStatusException e){
+                assertEquals(503, e.getStatus()); // bulkhead full
+                Thread.sleep(50);
+            }
+        }
+        fail("The permit was not released");
+    }
+
+}
@@ -0,0 +1,173 @@
+package io.github.tkote.fn.example;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fnproject.fn.api.RuntimeContext;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.*;
+
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+import io.github.tkote.fn.example.util.HttpClientUtil;
+import io.github.tkote.fn.example.util.HttpClientUtil.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * HttpClientUtil against a stub upstream, with both clients.
+ * /status/N replies N, /slow after a second; every reply has the client port of the connection as its body.
+ */
+public class HttpClientUtilTest {
+
+    private HttpServer server;
+    private String url;
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+
+    @Before
+    public void startUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            final String path = exchange.getRequestURI().getPath();
+            calls.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+            exchange.getRequestHeaders().forEach((k, v) -> received.put(k.toLowerCase(), v.get(0)));
+            exchange.getRequestBody().readAllBytes();
+            int status = 200;
+            if(path.startsWith("/status/")){
+                status = Integer.parseInt(path.substring("/status/".length()));
+            }else if(path.equals("/slow")){
+                try{
+                    Thread.sleep(1000);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final byte[] body = Integer.toString(exchange.getRemoteAddress().getPort()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            try{
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+            }catch(IOException e){
+                // the client gave up
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopUpstream(){
+        server.stop(0);
+    }
+
+    private static HttpClientUtil httpClient(String client, Map<String, String> settings){
+        final Map<String, String> config = new HashMap<>(settings);
+        config.put("HTTP_CLIENT", client);
+        final HttpClientUtil httpClient = new HttpClientUtil();
+        httpClient.onInit((RuntimeContext)Proxy.newProxyInstance(HttpClientUtilTest.class.getClassLoader(),
+            new Class<?>[]{ RuntimeContext.class }, (p, m, args) -> {
+                if(m.getName().equals("getConfiguration")) return config;
+                throw new UnsupportedOperationException(m.getName());
+            }));
+        return httpClient;
+    }
+
+    private int calls(String path){
+        return calls.getOrDefault(path, new AtomicInteger()).get();
+    }
+
+    // two calls share one kept-alive connection
+    private void testReuse(String client) throws Exception {
+        final HttpClientUtil httpClient = httpClient(client, Map.of());
+        final Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+        final Response first = httpClient.execute("POST", url + "/status/201", "{}".getBytes(StandardCharsets.UTF_8), "application/json", Map.of("X-Test", "1"), deadline);
+        assertEquals(201, first.status);
+        assertEquals("text/plain", first.contentType);
+        assertEquals("application/json", received.get("content-type"));
+        assertEquals("1", received.get("x-test"));
+        assertNotNull(received.get(Deadline.HEADER.toLowerCase()));
+
+        final Response second = httpClient.execute("GET", url + "/status/200", null, null, Map.of(), deadline);
+        assertEquals(200, second.status);
+        assertEquals(new String(first.body, StandardCharsets.UTF_8), new String(second.body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReuseApache() throws Exception {
+        testReuse("apache");
+        assertTrue(httpClient("apache", Map.of("HTTP_MAX_CONNECTIONS", "7")).getPoolStats().contains("max: 7"));
+    }
+
+    @Test
+    public void testReuseJdk() throws Exception {
+        testReuse("jdk");
+        assertEquals("jdk", httpClient("jdk", Map.of()).getPoolStats());
+    }
+
+    // HTTP_SOCKET_TIMEOUT
+    private void testTimeout(String client) throws Exception {
+        final HttpClientUtil httpClient = httpClient(client, Map.of("HTTP_SOCKET_TIMEOUT", "200", "HTTP_MAX_ATTEMPTS", "1"));
+        final long start = System.currentTimeMillis();
+        try{
+            httpClient.execute("GET", url + "/slow", null, null, Map.of(), Deadline.NONE);
+            fail();
+        }catch(IOException e){
+            assertTrue(System.currentTimeMillis() - start < 900);
+        }
+    }
+
+    @Test
+    public void testTimeoutApache() throws Exception {
+        testTimeout("apache");
+    }
+
+    @Test
+    public void testTimeoutJdk() throws Exception {
+        testTimeout("jdk");
+    }
+
+    // a GET answered 503 is retried once by default, not with HTTP_MAX_ATTEMPTS=1, and never if the method isn't hedged
+    @Test
+    public void testRetry() throws Exception {
+        final Map<String, String> settings = Map.of("HTTP_BREAKER_MIN_CALLS", "100");
+        assertEquals(503, httpClient("jdk", settings).execute("GET", url + "/status/503", null, null, Map.of(), Deadline.NONE).status);
+        assertEquals(2, calls("/status/503"));
+
+        final Map<String, String> once = Map.of("HTTP_BREAKER_MIN_CALLS", "100", "HTTP_MAX_ATTEMPTS", "1");
+        assertEquals(503, httpClient("jdk", once).execute("GET", url + "/status/503", null, null, Map.of(), Deadline.NONE).status);
+        assertEquals(3, calls("/status/503"));
+
+        assertEquals(503, httpClient("jdk", settings).execute("POST", url + "/status/503", new byte[0], null, Map.of(), Deadline.NONE).status);
+        assertEquals(4, calls("/status/503"));
+    }
+
+    // HTTP_BREAKER_* - the circuit opens after 2 failures and the third call doesn't reach the upstream
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        final HttpClientUtil httpClient = httpClient("jdk", Map.of("HTTP_BREAKER_MIN_CALLS", "2", "HTTP_MAX_ATTEMPTS", "1"));
+        for(int i = 0 ; i < 2 ; i++){
+            assertEquals(500, httpClient.execute("GET", url + "/status/500", null, null, Map.of(), Deadline.NONE).status);
+        }
+        try{
+            httpClient.execute("GET", url + "/status/200", null, null, Map.of(), Deadline.NONE);
+            fail();
+        }catch(HttpStatusException e){
+            assertEquals(503, e.getStatus());
+        }
+        assertEquals(0, calls("/status/200"));
+        assertTrue(httpClient.getUpstreamStats().containsKey(url));
+    }
+
+}
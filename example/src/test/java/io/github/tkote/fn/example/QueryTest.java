@@ -0,0 +1,228 @@
+package io.github.tkote.fn.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fnproject.fn.api.RuntimeContext;
+
+import org.junit.*;
+
+import io.github.tkote.fn.eventrouter.HttpResponse;
+import io.github.tkote.fn.eventrouter.StreamingOutputEvent;
+import io.github.tkote.fn.example.handler.Query;
+import io.github.tkote.fn.example.handler.Query.QueryRequest;
+import io.github.tkote.fn.example.util.DatabaseUtil;
+
+import static org.junit.Assert.*;
+
+/**
+ * Query with an in-memory ResultSet (JDBC interfaces as proxies) instead of a database.
+ */
+public class QueryTest {
+
+    private static final String[] NAMES = {"ID", "NAME", "QTY", "BIG", "PRICE", "RATE", "ACTIVE", "OTHER"};
+    private static final int[] TYPES = {Types.INTEGER, Types.VARCHAR, Types.SMALLINT, Types.BIGINT, Types.DECIMAL, Types.DOUBLE, Types.BOOLEAN, Types.OTHER};
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    // a DatabaseUtil whose connections return the rows
+    private static class TestDatabase extends DatabaseUtil{
+        private final List<Object[]> rows;
+        private final List<String> events = new ArrayList<>();
+        private int fetchSize;
+
+        private TestDatabase(List<Object[]> rows){
+            this.rows = rows;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler){
+            return (T)Proxy.newProxyInstance(QueryTest.class.getClassLoader(), new Class<?>[]{ type }, handler);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException{
+            events.add("open");
+            final ResultSetMetaData md = proxy(ResultSetMetaData.class, (p, m, args) -> {
+                switch(m.getName()){
+                    case "getColumnCount": return NAMES.length;
+                    case "getColumnName": return NAMES[(int)args[0] - 1];
+                    case "getColumnType": return TYPES[(int)args[0] - 1];
+                    default: throw new UnsupportedOperationException(m.getName());
+                }
+            });
+            final int[] row = {-1};
+            final Object[] last = {null};
+            final ResultSet rs = proxy(ResultSet.class, (p, m, args) -> {
+                switch(m.getName()){
+                    case "getMetaData": return md;
+                    case "next":
+                        // a null row - the connection is lost while fetching
+                        if(++row[0] < rows.size() && null == rows.get(row[0])) throw new SQLException("ORA-03113: end-of-file on communication channel");
+                        return row[0] < rows.size();
+                    case "wasNull": return null == last[0];
+                    case "close": events.add("close ResultSet"); return null;
+                    default:
+                }
+                final Object v = rows.get(row[0])[(int)args[0] - 1];
+                last[0] = v;
+                switch(m.getName()){
+                    case "getInt": return null == v ? 0 : ((Number)v).intValue();
+                    case "getLong": return null == v ? 0L : ((Number)v).longValue();
+                    case "getDouble": return null == v ? 0.0 : ((Number)v).doubleValue();
+                    case "getBoolean": return null != v && (Boolean)v;
+                    case "getString": case "getBigDecimal": case "getObject": return v;
+                    default: throw new UnsupportedOperationException(m.getName());
+                }
+            });
+            final Statement statement = proxy(Statement.class, (p, m, args) -> {
+                switch(m.getName()){
+                    case "setFetchSize": fetchSize = (int)args[0]; return null;
+                    case "executeQuery":
+                        if(((String)args[0]).contains("missing")) throw new SQLException("ORA-00942: table or view does not exist");
+                        return rs;
+                    case "close": events.add("close Statement"); return null;
+                    default: throw new UnsupportedOperationException(m.getName());
+                }
+            });
+            return proxy(Connection.class, (p, m, args) -> {
+                switch(m.getName()){
+                    case "createStatement": return statement;
+                    case "close": events.add("close Connection"); return null;
+                    default: throw new UnsupportedOperationException(m.getName());
+                }
+            });
+        }
+    }
+
+    private static Query query(TestDatabase db){
+        final RuntimeContext rctx = TestDatabase.proxy(RuntimeContext.class, (p, m, args) -> {
+            if(m.getName().equals("getConfiguration")) return Map.of("QUERY_FETCH_SIZE", "100");
+            throw new UnsupportedOperationException(m.getName());
+        });
+        final Query query = new Query(db);
+        query.onInit(rctx);
+        return query;
+    }
+
+    private static String write(HttpResponse response) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getOutputEvent().writeToOutput(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        final TestDatabase db = new TestDatabase(List.of(
+            new Object[]{ 1, "pen \"blue\"", 2, 1L << 40, new BigDecimal("1.50"), 0.25, true, 7 },
+            new Object[]{ 2, null, null, null, null, null, null, null }));
+        final HttpResponse response = query(db).handleRequest(new QueryRequest("select * from items"));
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getOutputEvent().getContentType().get());
+        assertEquals(List.of("open"), db.events); // executed, closed after the rows have been written
+
+        final String body = write(response);
+        assertEquals("[{\"ID\":1,\"NAME\":\"pen \\\"blue\\\"\",\"QTY\":2,\"BIG\":1099511627776,\"PRICE\":1.50,\"RATE\":0.25,\"ACTIVE\":true,\"OTHER\":7},"
+            + "{\"ID\":2,\"NAME\":null,\"QTY\":null,\"BIG\":null,\"PRICE\":null,\"RATE\":null,\"ACTIVE\":null,\"OTHER\":null}]", body);
+        final JsonNode json = om.readTree(body);
+        assertTrue(json.get(0).get("ID").isInt());
+        assertTrue(json.get(0).get("BIG").isLong());
+        assertTrue(json.get(0).get("RATE").isDouble());
+        assertTrue(json.get(0).get("ACTIVE").isBoolean());
+        assertTrue(json.get(1).get("NAME").isNull());
+
+        assertEquals(100, db.fetchSize);
+        assertEquals(List.of("open", "close ResultSet", "close Statement", "close Connection"), db.events);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final TestDatabase db = new TestDatabase(List.of());
+        assertEquals("[]", write(query(db).handleRequest(new QueryRequest("select * from items where 1 = 0"))));
+        assertEquals(List.of("open", "close ResultSet", "close Statement", "close Connection"), db.events);
+    }
+
+    // the statement fails before the response - 500
+    @Test
+    public void testError() throws Exception {
+        final TestDatabase db = new TestDatabase(List.of());
+        final HttpResponse response = query(db).handleRequest(new QueryRequest("select * from missing"));
+        assertEquals(500, response.getStatus());
+        final JsonNode json = om.readTree(write(response));
+        assertEquals(500, json.get("code").asInt());
+        assertTrue(json.get("message").asText().contains("ORA-00942"));
+        assertEquals(List.of("open", "close Statement", "close Connection"), db.events);
+    }
+
+    // a row fails after the status has been sent - the json is left incomplete, not closed as a shorter array
+    @Test
+    public void testRowError() throws Exception {
+        final TestDatabase db = new TestDatabase(Arrays.asList(
+            new Object[]{ 1, "pen", 2, 1L, new BigDecimal("1.50"), 0.25, true, 7 },
+            null));
+        final HttpResponse response = query(db).handleRequest(new QueryRequest("select * from items"));
+        assertEquals(200, response.getStatus());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try{
+            response.getOutputEvent().writeToOutput(out);
+            fail();
+        }catch(IOException e){
+            assertTrue(e.getMessage(), e.getMessage().contains("ORA-03113"));
+        }
+        final String body = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(body, body.startsWith("[{\"ID\":1,"));
+        assertFalse(body, body.endsWith("]"));
+        try{
+            om.readTree(body);
+            fail(body);
+        }catch(IOException e){
+            // invalid json
+        }
+        assertEquals(List.of("open", "close ResultSet", "close Statement", "close Connection"), db.events);
+    }
+
+    // the response is discarded without being written - closed anyway, once
+    @Test
+    public void testDiscard() throws Exception {
+        final TestDatabase db = new TestDatabase(List.of());
+        final HttpResponse response = query(db).handleRequest(new QueryRequest("select * from items"));
+        ((StreamingOutputEvent)response.getOutputEvent()).close();
+        assertEquals(List.of("open", "close ResultSet", "close Statement", "close Connection"), db.events);
+        ((StreamingOutputEvent)response.getOutputEvent()).close();
+        assertEquals(4, db.events.size());
+    }
+
+    // written - the writer closes them, discarding afterwards does nothing
+    @Test
+    public void testDiscardAfterWrite() throws Exception {
+        final TestDatabase db = new TestDatabase(List.of());
+        final HttpResponse response = query(db).handleRequest(new QueryRequest("select * from items"));
+        assertEquals("[]", write(response));
+        ((StreamingOutputEvent)response.getOutputEvent()).close();
+        assertEquals(List.of("open", "close ResultSet", "close Statement", "close Connection"), db.events);
+    }
+
+    @Test
+    public void testNoStatement() throws Exception {
+        final TestDatabase db = new TestDatabase(List.of());
+        final HttpResponse response = query(db).handleRequest(new QueryRequest(" "));
+        assertEquals(400, response.getStatus());
+        assertEquals(List.of(), db.events);
+    }
+
+}
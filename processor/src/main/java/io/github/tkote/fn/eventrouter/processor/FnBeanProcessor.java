@@ -0,0 +1,455 @@
+package io.github.tkote.fn.eventrouter.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a FnBeanDefinition for every class annotated with @FnBean, and registers them in
+ * META-INF/services/io.github.tkote.fn.eventrouter.FnBeanDefinition.
+ * The generated definitions call the constructor and the annotated members directly, so EventRouter
+ * does not scan these classes by reflection at startup. Entries of earlier compilations are kept in the services file.
+ * Annotations are referred by name so that this processor has no dependency on fn-event-router.
+ */
+@SupportedAnnotationTypes(FnBeanProcessor.FN_BEAN)
+public class FnBeanProcessor extends AbstractProcessor {
+
+    static final String FN_BEAN = "io.github.tkote.fn.eventrouter.annotation.FnBean";
+    static final String FN_HTTP_EVENT = "io.github.tkote.fn.eventrouter.annotation.FnHttpEvent";
+    static final String FN_INIT = "io.github.tkote.fn.eventrouter.annotation.FnInit";
+    static final String FN_INJECT = "io.github.tkote.fn.eventrouter.annotation.FnInject";
+    static final String FN_WARMUP = "io.github.tkote.fn.eventrouter.annotation.FnWarmup";
+    static final String RUNTIME_CONTEXT = "com.fnproject.fn.api.RuntimeContext";
+    static final String DEFINITION = "io.github.tkote.fn.eventrouter.FnBeanDefinition";
+    static final String REFLECTIVE_DEFINITION = "io.github.tkote.fn.eventrouter.ReflectiveBeanDefinition";
+
+    private final List<String> generated = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if(roundEnv.processingOver()){
+            writeServiceFile();
+            return false;
+        }
+        final TypeElement fnBean = processingEnv.getElementUtils().getTypeElement(FN_BEAN);
+        if(fnBean == null) return false;
+
+        final List<TypeElement> beans = new ArrayList<>();
+        for(Element element : roundEnv.getElementsAnnotatedWith(fnBean)){
+            if(element.getKind() != ElementKind.CLASS) continue;
+            final TypeElement type = (TypeElement)element;
+            // same as the Jandex index - only classes annotated directly, abstract classes are skipped
+            if(!isAnnotated(type, FN_BEAN) || type.getModifiers().contains(Modifier.ABSTRACT)) continue;
+            beans.add(type);
+            if(validate(type)){
+                generate(type);
+            }
+        }
+        validateWiring(beans);
+        return false;
+    }
+
+    // FnBean must be instantiable by the router
+    private boolean validate(TypeElement type){
+        boolean valid = true;
+        if(!type.getModifiers().contains(Modifier.PUBLIC)){
+            error(type, "@FnBean class must be public: " + type.getQualifiedName());
+            valid = false;
+        }
+        if(type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)){
+            error(type, "@FnBean nested class must be static: " + type.getQualifiedName());
+            valid = false;
+        }
+        final List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        final boolean hasDefault = constructors.stream()
+            .anyMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC));
+        final List<ExecutableElement> injectionConstructors = injectionConstructors(type);
+        if(injectionConstructors.size() > 1){
+            error(type, "@FnBean class must have only one @FnInject constructor: " + type.getQualifiedName());
+            valid = false;
+        }
+        for(ExecutableElement constructor : injectionConstructors){
+            if(!constructor.getModifiers().contains(Modifier.PUBLIC)){
+                error(constructor, "@FnInject constructor must be public: " + type.getQualifiedName());
+                valid = false;
+            }
+        }
+        if(!hasDefault && injectionConstructors.isEmpty()){
+            error(type, "@FnBean class must have a public no-arg constructor or a @FnInject constructor: " + type.getQualifiedName());
+            valid = false;
+        }
+        for(ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())){
+            if(!isAnnotated(method, FN_INIT) && !isAnnotated(method, FN_WARMUP)) continue;
+            for(VariableElement param : method.getParameters()){
+                if(!erasure(param.asType()).equals(RUNTIME_CONTEXT)){
+                    error(param, "Parameter type not supported for @FnInit/@FnWarmup: " + type.getQualifiedName() + "#" + method.getSimpleName());
+                    valid = false;
+                }
+            }
+        }
+        for(ExecutableElement method : handlerMethods(type)){
+            if(method.getModifiers().contains(Modifier.STATIC)){
+                error(method, "@FnHttpEvent method must not be static: " + type.getQualifiedName() + "#" + method.getSimpleName());
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Resolves the injection points against the FnBeans of this compilation, same rules as Injector.
+     * Ambiguous types and circular constructor injection are errors.
+     * Unresolved types are only warned, since the FnBean may come from another jar.
+     */
+    private void validateWiring(List<TypeElement> beans){
+        final Map<TypeElement, List<TypeElement>> constructorDeps = new LinkedHashMap<>();
+        for(TypeElement type : beans){
+            final List<Element> points = new ArrayList<>();
+            ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+                .filter(f -> isAnnotated(f, FN_INJECT)).forEach(points::add);
+            ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+                .filter(m -> isAnnotated(m, FN_INJECT)).forEach(m -> points.addAll(m.getParameters()));
+            final List<TypeElement> deps = new ArrayList<>();
+            for(ExecutableElement constructor : injectionConstructors(type)){
+                for(VariableElement param : constructor.getParameters()){
+                    points.add(param);
+                    final TypeElement dep = resolveBean(param, beans);
+                    if(Objects.nonNull(dep)) deps.add(dep);
+                }
+            }
+            points.forEach(p -> resolveBean(p, beans));
+            constructorDeps.put(type, deps);
+        }
+        final Set<TypeElement> done = new HashSet<>();
+        for(TypeElement type : beans){
+            findCycle(type, constructorDeps, new ArrayList<>(), done);
+        }
+    }
+
+    private TypeElement resolveBean(Element point, List<TypeElement> beans){
+        final Types types = processingEnv.getTypeUtils();
+        TypeMirror target = types.erasure(point.asType());
+        final String name = target.toString();
+        if(name.equals(RUNTIME_CONTEXT)) return null;
+        if(name.equals(Supplier.class.getName())){
+            final List<? extends TypeMirror> args = ((DeclaredType)point.asType()).getTypeArguments();
+            if(args.isEmpty()){
+                error(point, "Type argument of Supplier is required: " + point);
+                return null;
+            }
+            target = types.erasure(upperBound(args.get(0)));
+            // a provider is not a constructor dependency
+            resolve(point, target, beans);
+            return null;
+        }
+        return resolve(point, target, beans);
+    }
+
+    private TypeElement resolve(Element point, TypeMirror target, List<TypeElement> beans){
+        final Types types = processingEnv.getTypeUtils();
+        final List<TypeElement> candidates = new ArrayList<>();
+        for(TypeElement bean : beans){
+            final TypeMirror beanType = types.erasure(bean.asType());
+            if(types.isSameType(beanType, target)) return bean;
+            if(types.isAssignable(beanType, target)) candidates.add(bean);
+        }
+        if(candidates.size() > 1){
+            error(point, "Ambiguous FnBean for " + target + ": "
+                + candidates.stream().map(c -> c.getQualifiedName().toString()).collect(Collectors.joining(",")));
+            return null;
+        }
+        if(candidates.isEmpty()){
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "No FnBean for " + target + " in this module", point);
+            return null;
+        }
+        return candidates.get(0);
+    }
+
+    private void findCycle(TypeElement type, Map<TypeElement, List<TypeElement>> deps, List<TypeElement> path, Set<TypeElement> done){
+        if(done.contains(type)) return;
+        if(path.contains(type)){
+            final String cycle = path.subList(path.indexOf(type), path.size()).stream()
+                .map(t -> t.getQualifiedName().toString()).collect(Collectors.joining(" -> "));
+            error(type, "Circular constructor injection: " + cycle + " -> " + type.getQualifiedName());
+            done.add(type);
+            return;
+        }
+        path.add(type);
+        for(TypeElement dep : deps.getOrDefault(type, List.of())){
+            findCycle(dep, deps, path, done);
+        }
+        path.remove(path.size() - 1);
+        done.add(type);
+    }
+
+    private void generate(TypeElement type){
+        final String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final String simpleName = flatName(type) + "_FnBeanDefinition";
+        final String qualifiedName = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+        final String bean = type.getQualifiedName().toString();
+
+        final List<ExecutableElement> injectionConstructors = injectionConstructors(type);
+        final String create = injectionConstructors.isEmpty() ? "new " + bean + "()"
+            : "new " + bean + "(" + injectionArgs(injectionConstructors.get(0)) + ")";
+        final List<String> injections = new ArrayList<>();
+        ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+            .filter(f -> isAnnotated(f, FN_INJECT))
+            .forEach(f -> injections.add(fieldInjection(bean, f)));
+        ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+            .filter(m -> isAnnotated(m, FN_INJECT))
+            .forEach(m -> injections.add(methodCall(bean, m, injectionArgs(m)) + ";"));
+        final List<String> inits = ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+            .filter(m -> isAnnotated(m, FN_INIT))
+            .map(m -> methodCall(bean, m, runtimeContextArgs(m)) + ";")
+            .collect(Collectors.toList());
+        final List<ExecutableElement> warmups = ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+            .filter(m -> isAnnotated(m, FN_WARMUP))
+            .collect(Collectors.toList());
+        final List<String> handlers = handlerMethods(type).stream()
+            .map(m -> methodLookup(bean, m))
+            .collect(Collectors.toList());
+
+        try{
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try(PrintWriter out = new PrintWriter(file.openWriter())){
+                if(!pkg.isEmpty()){
+                    out.println("package " + pkg + ";");
+                    out.println();
+                }
+                out.println("import java.lang.reflect.Method;");
+                out.println("import java.util.List;");
+                out.println("import java.util.function.BiConsumer;");
+                out.println();
+                out.println("import " + RUNTIME_CONTEXT + ";");
+                out.println();
+                out.println("@javax.annotation.processing.Generated(\"" + FnBeanProcessor.class.getName() + "\")");
+                out.println("public final class " + simpleName + " implements " + DEFINITION + " {");
+                out.println();
+                out.println("    @Override");
+                out.println("    public Class<?> getBeanClass(){");
+                out.println("        return " + bean + ".class;");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    @SuppressWarnings(\"unchecked\")");
+                out.println("    public Object create(Resolver resolver) throws Exception{");
+                out.println("        return " + create + ";");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    @SuppressWarnings(\"unchecked\")");
+                out.println("    public void inject(Object fnBean, Resolver resolver) throws Exception{");
+                if(!injections.isEmpty()){
+                    out.println("        final " + bean + " bean = (" + bean + ")fnBean;");
+                    injections.forEach(line -> out.println("        " + line));
+                }
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public void init(Object fnBean, RuntimeContext rctx) throws Exception{");
+                if(!inits.isEmpty()){
+                    out.println("        final " + bean + " bean = (" + bean + ")fnBean;");
+                    inits.forEach(line -> out.println("        " + line));
+                }
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public void warmUp(Object fnBean, RuntimeContext rctx, BiConsumer<String, Exception> onFailure){");
+                if(!warmups.isEmpty()){
+                    out.println("        final " + bean + " bean = (" + bean + ")fnBean;");
+                    for(ExecutableElement method : warmups){
+                        out.println("        try{");
+                        out.println("            " + methodCall(bean, method, runtimeContextArgs(method)) + ";");
+                        out.println("        }catch(Exception e){");
+                        out.println("            onFailure.accept(\"" + method.getSimpleName() + "\", e);");
+                        out.println("        }");
+                    }
+                }
+                out.println("    }");
+                out.println();
+                out.println("    // looked up for the annotations and the parameter types, invoked through method handles");
+                out.println("    @Override");
+                out.println("    public List<Method> getHandlerMethods() throws Exception{");
+                out.println("        return " + listOf(handlers) + ";");
+                out.println("    }");
+                out.println();
+                out.println("}");
+            }
+            generated.add(qualifiedName);
+        }catch(IOException e){
+            error(type, "Failed to generate FnBeanDefinition - " + e.getMessage());
+        }
+    }
+
+    // keeps the entries of the FnBeans not compiled this time (incremental builds), unless they are gone
+    private void writeServiceFile(){
+        if(generated.isEmpty()) return;
+        final String resource = "META-INF/services/" + DEFINITION;
+        final Set<String> names = new LinkedHashSet<>();
+        try{
+            final FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resource);
+            try(BufferedReader in = new BufferedReader(existing.openReader(true))){
+                in.lines().map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .filter(line -> Objects.nonNull(processingEnv.getElementUtils().getTypeElement(line)))
+                    .forEach(names::add);
+            }
+        }catch(IOException e){
+            // not written before
+        }
+        names.addAll(generated);
+        try{
+            final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resource);
+            try(Writer out = file.openWriter()){
+                for(String name : names){
+                    out.write(name);
+                    out.write("\n");
+                }
+            }
+        }catch(IOException e){
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write service file - " + e.getMessage());
+        }
+    }
+
+    // public methods including inherited ones, same as Class#getMethods()
+    private List<ExecutableElement> handlerMethods(TypeElement type){
+        return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type)).stream()
+            .filter(m -> m.getModifiers().contains(Modifier.PUBLIC) && isAnnotated(m, FN_HTTP_EVENT))
+            .collect(Collectors.toList());
+    }
+
+    private List<ExecutableElement> injectionConstructors(TypeElement type){
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+            .filter(c -> isAnnotated(c, FN_INJECT))
+            .collect(Collectors.toList());
+    }
+
+    // Bean.class.getMethod("name", Param.class, ...)
+    private String methodLookup(String bean, ExecutableElement method){
+        final StringBuilder sb = new StringBuilder();
+        sb.append(bean).append(".class.getMethod(\"").append(method.getSimpleName()).append("\"");
+        for(VariableElement param : method.getParameters()){
+            sb.append(", ").append(erasure(param.asType())).append(".class");
+        }
+        return sb.append(")").toString();
+    }
+
+    // the generated class is in the same package - private members (or final fields) need reflection
+    private String fieldInjection(String bean, VariableElement field){
+        final String value = injectionArg(field);
+        final Set<Modifier> modifiers = field.getModifiers();
+        if(modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)){
+            return String.format("%s.setField(bean, %s.class, \"%s\", %s);", REFLECTIVE_DEFINITION, bean, field.getSimpleName(), value);
+        }
+        return String.format("%s.%s = %s;", modifiers.contains(Modifier.STATIC) ? bean : "bean", field.getSimpleName(), value);
+    }
+
+    private String methodCall(String bean, ExecutableElement method, String args){
+        final Set<Modifier> modifiers = method.getModifiers();
+        if(modifiers.contains(Modifier.PRIVATE)){
+            final String types = method.getParameters().stream()
+                .map(p -> erasure(p.asType()) + ".class")
+                .collect(Collectors.joining(", ", "new Class<?>[]{", "}"));
+            return String.format("%s.invokeMethod(bean, %s.class, \"%s\", %s%s)", REFLECTIVE_DEFINITION, bean,
+                method.getSimpleName(), types, args.isEmpty() ? "" : ", " + args);
+        }
+        return String.format("%s.%s(%s)", modifiers.contains(Modifier.STATIC) ? bean : "bean", method.getSimpleName(), args);
+    }
+
+    private String injectionArgs(ExecutableElement method){
+        return method.getParameters().stream().map(this::injectionArg).collect(Collectors.joining(", "));
+    }
+
+    // resolver.resolve(Type.class), or resolver.provider(Type.class) for Supplier<Type>
+    private String injectionArg(VariableElement point){
+        final String name = erasure(point.asType());
+        if(name.equals(Supplier.class.getName())){
+            final List<? extends TypeMirror> args = ((DeclaredType)point.asType()).getTypeArguments();
+            if(!args.isEmpty()) return "resolver.provider(" + erasure(upperBound(args.get(0))) + ".class)";
+        }
+        return "resolver.resolve(" + name + ".class)";
+    }
+
+    // validated to be RuntimeContext only
+    private static String runtimeContextArgs(ExecutableElement method){
+        return method.getParameters().stream().map(p -> "rctx").collect(Collectors.joining(", "));
+    }
+
+    private String erasure(TypeMirror type){
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    // ? extends T -> T
+    private static TypeMirror upperBound(TypeMirror type){
+        if(type instanceof WildcardType && Objects.nonNull(((WildcardType)type).getExtendsBound())){
+            return ((WildcardType)type).getExtendsBound();
+        }
+        return type;
+    }
+
+    private static String listOf(List<String> items){
+        if(items.isEmpty()) return "List.of()";
+        return items.stream().collect(Collectors.joining(",\n            ", "List.of(\n            ", ")"));
+    }
+
+    // Outer.Inner -> Outer_Inner
+    private static String flatName(TypeElement type){
+        final Element enclosing = type.getEnclosingElement();
+        if(enclosing instanceof TypeElement){
+            return flatName((TypeElement)enclosing) + "_" + type.getSimpleName();
+        }
+        return type.getSimpleName().toString();
+    }
+
+    private static boolean isAnnotated(Element element, String annotation){
+        for(AnnotationMirror mirror : element.getAnnotationMirrors()){
+            if(((TypeElement)mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void error(Element element, String message){
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
@@ -0,0 +1,227 @@
+package io.github.tkote.fn.eventrouter.processor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import io.github.tkote.fn.eventrouter.FnBeanDefinition;
+import io.github.tkote.fn.eventrouter.Injector;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the processor in javac on small sources, then loads and runs the generated definitions.
+ */
+public class FnBeanProcessorTest {
+
+    private static final String SERVICE_FILE = "META-INF/services/" + FnBeanProcessor.DEFINITION;
+
+    private Path out; // classes
+    private Path generated; // sources, as target/generated-sources/annotations
+
+    @Before
+    public void createOutput() throws IOException {
+        out = Files.createTempDirectory("fn-bean-processor");
+        generated = Files.createTempDirectory("fn-bean-processor-sources");
+    }
+
+    @After
+    public void deleteOutput() throws IOException {
+        for(Path dir : List.of(out, generated)){
+            try(Stream<Path> paths = Files.walk(dir)){
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+        private final String code;
+        private Source(String className, String code){
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors){
+            return code;
+        }
+    }
+
+    // compiles with the processor into out, returns the errors and warnings
+    private List<Diagnostic<? extends JavaFileObject>> compile(String... classAndCode) throws IOException {
+        final List<Source> sources = new ArrayList<>();
+        for(int i = 0 ; i < classAndCode.length ; i += 2){
+            sources.add(new Source(classAndCode[i], classAndCode[i + 1]));
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)){
+            final List<String> options = Arrays.asList("-d", out.toString(), "-s", generated.toString(),
+                "-classpath", out + System.getProperty("path.separator") + System.getProperty("java.class.path"));
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+            task.setProcessors(List.of(new FnBeanProcessor()));
+            task.call();
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    private static String messages(List<Diagnostic<? extends JavaFileObject>> diagnostics, Diagnostic.Kind kind){
+        return diagnostics.stream().filter(d -> d.getKind() == kind).map(d -> d.getMessage(null)).collect(Collectors.joining("\n"));
+    }
+
+    private List<FnBeanDefinition> load(ClassLoader loader){
+        final List<FnBeanDefinition> definitions = new ArrayList<>();
+        ServiceLoader.load(FnBeanDefinition.class, loader).forEach(definitions::add);
+        definitions.sort(Comparator.comparing(d -> d.getBeanClass().getName()));
+        return definitions;
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+            "test.Dep",
+            "package test;\n"
+            + "import io.github.tkote.fn.eventrouter.annotation.*;\n"
+            + "@FnBean public class Dep {}\n",
+            "test.Lazy",
+            "package test;\n"
+            + "import io.github.tkote.fn.eventrouter.annotation.*;\n"
+            + "@FnBean(lazy = true) public class Lazy {}\n",
+            "test.Bean",
+            "package test;\n"
+            + "import java.util.function.Supplier;\n"
+            + "import com.fnproject.fn.api.RuntimeContext;\n"
+            + "import io.github.tkote.fn.eventrouter.annotation.*;\n"
+            + "@FnBean public class Bean {\n"
+            + "    public final Dep byConstructor; public final Supplier<Lazy> lazy;\n"
+            + "    @FnInject Dep field;\n"
+            + "    @FnInject private Dep privateField;\n"
+            + "    public Dep byMethod; public boolean initialized;\n"
+            + "    @FnInject public Bean(Dep dep, Supplier<Lazy> lazy){ this.byConstructor = dep; this.lazy = lazy; }\n"
+            + "    @FnInject void set(Dep dep){ this.byMethod = dep; }\n"
+            + "    @FnInit private void init(RuntimeContext rctx){ initialized = true; }\n"
+            + "    @FnWarmup void warmUp(){ throw new IllegalStateException(\"cold\"); }\n"
+            + "    @FnHttpEvent(method = \"GET\", path = \"/bean\") public String get(){ return \"bean\"; }\n"
+            + "    public Dep getPrivateField(){ return privateField; }\n"
+            + "}\n");
+        assertEquals("", messages(diagnostics, Diagnostic.Kind.ERROR));
+
+        // direct calls for accessible members, reflection for private ones only
+        final String source = Files.readString(generated.resolve("test/Bean_FnBeanDefinition.java"));
+        assertTrue(source, source.contains("return new test.Bean(resolver.resolve(test.Dep.class), resolver.provider(test.Lazy.class));"));
+        assertTrue(source, source.contains("bean.field = resolver.resolve(test.Dep.class);"));
+        assertTrue(source, source.contains("bean.set(resolver.resolve(test.Dep.class));"));
+        assertTrue(source, source.contains("setField(bean, test.Bean.class, \"privateField\", resolver.resolve(test.Dep.class));"));
+        assertTrue(source, source.contains("invokeMethod(bean, test.Bean.class, \"init\", new Class<?>[]{com.fnproject.fn.api.RuntimeContext.class}, rctx)"));
+        assertFalse(source, source.contains("getDeclaredField"));
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())){
+            final List<FnBeanDefinition> definitions = load(loader);
+            assertEquals(Arrays.asList("test.Bean", "test.Dep", "test.Lazy"),
+                definitions.stream().map(d -> d.getBeanClass().getName()).collect(Collectors.toList()));
+
+            final Injector injector = new Injector(definitions, null);
+            final List<Object> beans = injector.createBeans();
+            final Object bean = beans.get(0);
+            final Object dep = beans.get(1);
+            final Class<?> clazz = bean.getClass();
+            assertSame(dep, clazz.getField("byConstructor").get(bean));
+            assertSame(beans.get(2), ((Supplier<?>)clazz.getField("lazy").get(bean)).get());
+            assertSame(dep, clazz.getMethod("getPrivateField").invoke(bean));
+            assertSame(dep, clazz.getField("byMethod").get(bean));
+            assertEquals(List.of(1), injector.getDependencies(0)); // the provider is not a dependency
+
+            definitions.get(0).init(bean, null);
+            assertEquals(true, clazz.getField("initialized").get(bean));
+            final List<String> failed = new ArrayList<>();
+            definitions.get(0).warmUp(bean, null, (name, e) -> failed.add(name + ":" + e.getMessage()));
+            assertEquals(List.of("warmUp:cold"), failed);
+            assertEquals(List.of(clazz.getMethod("get")), definitions.get(0).getHandlerMethods());
+        }
+    }
+
+    @Test
+    public void testAmbiguous() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+            "test.Service", "package test;\npublic interface Service {}\n",
+            "test.A", "package test;\n@io.github.tkote.fn.eventrouter.annotation.FnBean public class A implements Service {}\n",
+            "test.B", "package test;\n@io.github.tkote.fn.eventrouter.annotation.FnBean public class B implements Service {}\n",
+            "test.C", "package test;\n@io.github.tkote.fn.eventrouter.annotation.FnBean public class C {\n"
+                + "    @io.github.tkote.fn.eventrouter.annotation.FnInject Service service;\n"
+                + "    @io.github.tkote.fn.eventrouter.annotation.FnInject A a;\n" // exact class wins
+                + "    @io.github.tkote.fn.eventrouter.annotation.FnInject Runnable missing;\n"
+                + "}\n");
+        assertEquals("Ambiguous FnBean for test.Service: test.A,test.B", messages(diagnostics, Diagnostic.Kind.ERROR));
+        assertTrue(messages(diagnostics, Diagnostic.Kind.WARNING).contains("No FnBean for java.lang.Runnable in this module"));
+    }
+
+    @Test
+    public void testCycle() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+            "test.A", "package test;\nimport io.github.tkote.fn.eventrouter.annotation.*;\n"
+                + "@FnBean public class A { @FnInject public A(B b){} }\n",
+            "test.B", "package test;\nimport io.github.tkote.fn.eventrouter.annotation.*;\n"
+                + "@FnBean public class B { @FnInject public B(A a){} }\n",
+            "test.C", "package test;\nimport java.util.function.Supplier;\nimport io.github.tkote.fn.eventrouter.annotation.*;\n"
+                + "@FnBean public class C { @FnInject public C(Supplier<D> d){} }\n", // a provider breaks the cycle
+            "test.D", "package test;\nimport io.github.tkote.fn.eventrouter.annotation.*;\n"
+                + "@FnBean public class D { @FnInject public D(C c){} }\n");
+        assertEquals("Circular constructor injection: test.A -> test.B -> test.A", messages(diagnostics, Diagnostic.Kind.ERROR));
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(
+            "test.A", "package test;\nimport io.github.tkote.fn.eventrouter.annotation.*;\n"
+                + "@FnBean class A { @FnInit void init(String s){} }\n");
+        final String errors = messages(diagnostics, Diagnostic.Kind.ERROR);
+        assertTrue(errors, errors.contains("@FnBean class must be public: test.A"));
+        assertTrue(errors, errors.contains("Parameter type not supported for @FnInit/@FnWarmup: test.A#init"));
+        assertFalse(Files.exists(generated.resolve("test/A_FnBeanDefinition.java")));
+    }
+
+    @Test
+    public void testServiceFile() throws Exception {
+        // first build
+        compile("test.A", "package test;\n@io.github.tkote.fn.eventrouter.annotation.FnBean public class A {}\n",
+            "test.Gone", "package test;\n@io.github.tkote.fn.eventrouter.annotation.FnBean public class Gone {}\n");
+        final Path serviceFile = out.resolve(SERVICE_FILE);
+        assertEquals(List.of("test.A_FnBeanDefinition", "test.Gone_FnBeanDefinition"), Files.readAllLines(serviceFile));
+
+        // incremental build of B only, after Gone was deleted
+        Files.delete(out.resolve("test/Gone_FnBeanDefinition.class"));
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics =
+            compile("test.B", "package test;\n@io.github.tkote.fn.eventrouter.annotation.FnBean public class B {}\n");
+        assertEquals("", messages(diagnostics, Diagnostic.Kind.ERROR));
+        assertEquals(List.of("test.A_FnBeanDefinition", "test.B_FnBeanDefinition"), Files.readAllLines(serviceFile));
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())){
+            final Map<String, FnBeanDefinition> definitions = load(loader).stream()
+                .collect(Collectors.toMap(d -> d.getBeanClass().getSimpleName(), d -> d));
+            assertEquals(2, definitions.size());
+            assertTrue(definitions.containsKey("A") && definitions.containsKey("B"));
+        }
+    }
+
+}
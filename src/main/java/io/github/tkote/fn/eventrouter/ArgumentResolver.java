@@ -0,0 +1,10 @@
+package io.github.tkote.fn.eventrouter;
+
+/**
+ * Resolves the value of one handler parameter.
+ * Resolvers are built once per handler at setup time.
+ */
+@FunctionalInterface
+public interface ArgumentResolver {
+    Object resolve(RequestContext ctx);
+}
@@ -0,0 +1,73 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.fnproject.fn.api.RuntimeContext;
+
+/**
+ * Runs the @FnInit methods of one FnBean, once, after the beans it depends on (@FnInject).
+ * Thread-safe: concurrent callers wait for the initialization in progress.
+ * The dependency graph is acyclic (cycles are broken at setup time), so
+ * initializing dependencies while holding the lock cannot deadlock.
+ */
+public class BeanInitializer {
+    private final static Logger logger = Logger.getLogger(BeanInitializer.class.getName());
+
+    private final Object bean;
+    private final FnBeanDefinition definition;
+    private final boolean lazy;
+    private final RuntimeContext rctx;
+    private final List<BeanInitializer> dependencies = new ArrayList<>();
+    private volatile boolean initialized = false;
+
+    public BeanInitializer(Object bean, FnBeanDefinition definition, boolean lazy, RuntimeContext rctx){
+        this.bean = bean;
+        this.definition = definition;
+        this.lazy = lazy;
+        this.rctx = rctx;
+    }
+
+    void addDependency(BeanInitializer dependency){
+        if(!dependencies.contains(dependency)) dependencies.add(dependency);
+    }
+
+    public List<BeanInitializer> getDependencies(){
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    public Object getBean(){
+        return bean;
+    }
+
+    public boolean isLazy(){
+        return lazy;
+    }
+
+    public boolean isInitialized(){
+        return initialized;
+    }
+
+    // initializes the dependencies and then this bean, if not done yet
+    public void initialize() throws Exception {
+        if(initialized) return;
+        synchronized(this){
+            if(initialized) return;
+            for(BeanInitializer dependency : dependencies){
+                dependency.initialize();
+            }
+            final String className = bean.getClass().getName();
+            logger.fine("@FnInit: " + className);
+            definition.init(bean, rctx);
+            logger.fine("@FnInit complete: " + className);
+            initialized = true;
+        }
+    }
+
+    public String toString(){
+        return bean.getClass().getName();
+    }
+
+}
@@ -0,0 +1,105 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+
+/**
+ * Time budget of a request.
+ * Derived from the Fn deadline (Fn-Deadline, the function timeout), or from the X-Request-Deadline
+ * header set by an upstream caller if it is earlier - the caller gives up at that time anyway.
+ * Inject it as a handler parameter to stop work that nobody waits for, and forward it to outbound calls
+ * (timeouts bounded by timeoutMillis(), the header set by propagate()).
+ * The router responds 504 without calling the handler if the deadline has already passed.
+ */
+public final class Deadline {
+    private final static Logger logger = Logger.getLogger(Deadline.class.getName());
+
+    // propagated to outbound calls as an ISO-8601 instant
+    public static final String HEADER = "X-Request-Deadline";
+
+    public static final Deadline NONE = new Deadline(Instant.MAX);
+
+    private final Instant instant;
+
+    private Deadline(Instant instant){
+        this.instant = instant;
+    }
+
+    public static Deadline at(Instant instant){
+        return Objects.isNull(instant) ? NONE : new Deadline(instant);
+    }
+
+    public static Deadline after(Duration timeout){
+        return new Deadline(Instant.now().plus(timeout));
+    }
+
+    // the earlier of the Fn deadline and the propagated one
+    public static Deadline of(InputEvent inputEvent, HTTPGatewayContext hctx){
+        Instant instant = Objects.isNull(inputEvent) ? null : inputEvent.getDeadline();
+        final Optional<String> header = Objects.isNull(hctx) ? Optional.empty() : hctx.getHeaders().get(HEADER);
+        if(header.isPresent()){
+            try{
+                final Instant propagated = Instant.parse(header.get().trim());
+                if(Objects.isNull(instant) || propagated.isBefore(instant)) instant = propagated;
+            }catch(DateTimeParseException e){
+                logger.fine("Ignored malformed " + HEADER + ": " + header.get());
+            }
+        }
+        return at(instant);
+    }
+
+    public Instant getInstant(){
+        return instant;
+    }
+
+    public boolean isExpired(){
+        return this != NONE && !Instant.now().isBefore(instant);
+    }
+
+    // zero if expired
+    public Duration remaining(){
+        if(this == NONE) return Duration.ofMillis(Long.MAX_VALUE);
+        final Duration d = Duration.between(Instant.now(), instant);
+        return d.isNegative() ? Duration.ZERO : d;
+    }
+
+    public long remainingMillis(){
+        return this == NONE ? Long.MAX_VALUE : Math.max(0, instant.toEpochMilli() - System.currentTimeMillis());
+    }
+
+    // a timeout for an outbound call - the remaining time, at most max (and at least 1 so that 0 does not mean infinite)
+    public int timeoutMillis(int max){
+        return (int)Math.max(1, Math.min(max, remainingMillis()));
+    }
+
+    // a deadline earlier by the margin, e.g. to leave time for writing the response
+    public Deadline minus(Duration margin){
+        return this == NONE ? NONE : new Deadline(instant.minus(margin));
+    }
+
+    // throws HttpStatusException(504) if expired
+    public void check(){
+        if(isExpired()){
+            throw new HttpStatusException(504, "Gateway Timeout - deadline exceeded: " + instant);
+        }
+    }
+
+    // sets the header for an outbound call, e.g. deadline.propagate(request::setHeader)
+    public void propagate(BiConsumer<String, String> setHeader){
+        if(this != NONE) setHeader.accept(HEADER, instant.toString());
+    }
+
+    @Override
+    public String toString(){
+        return this == NONE ? "none" : instant.toString();
+    }
+
+}
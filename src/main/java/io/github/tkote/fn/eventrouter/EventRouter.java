@@ -1,29 +1,67 @@
 package io.github.tkote.fn.eventrouter;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import io.github.tkote.fn.eventrouter.annotation.FnBean;
 import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
-import io.github.tkote.fn.eventrouter.annotation.FnInit;
-import io.github.tkote.fn.eventrouter.annotation.FnInject;
+import io.github.tkote.fn.eventrouter.logging.AccessLog;
 import io.github.tkote.fn.eventrouter.logging.Logging;
+import io.github.tkote.fn.eventrouter.metrics.MetricsEndpoint;
+import io.github.tkote.fn.eventrouter.metrics.MetricsRegistry;
+import io.github.tkote.fn.eventrouter.metrics.RouteMetrics;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fnproject.fn.api.FnConfiguration;
+import com.fnproject.fn.api.Headers;
 import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.InvocationContext;
 import com.fnproject.fn.api.OutputEvent;
+import com.fnproject.fn.api.QueryParameters;
 import com.fnproject.fn.api.RuntimeContext;
 import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
 import com.fnproject.fn.api.tracing.TracingContext;
@@ -38,24 +76,348 @@ import org.jboss.jandex.IndexReader;
 public class EventRouter {
     private final static Logger logger = Logger.getLogger(EventRouter.class.getName());
 
+    // carries a checked exception out of InputEvent#consumeBody
+    private static class CheckedInvocationException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private CheckedInvocationException(Exception cause){
+            super(cause);
+        }
+    }
+
+    // resolver which consumes the request body
+    private static class BodyResolver implements ArgumentResolver {
+        private final ArgumentResolver delegate;
+        private BodyResolver(ArgumentResolver delegate){
+            this.delegate = delegate;
+        }
+        @Override
+        public Object resolve(RequestContext ctx){
+            return delegate.resolve(ctx);
+        }
+    }
+
     // simple class to store relation btw annotations and instances
+    // argument resolvers, invoker and result converter are prepared once at setup time
+    // immutable except initializer, which is set before the routing state is published
     public static class Handler{
-        public Object obj;
-        public Method method;
-        public FnHttpEvent annotation;
+        public final Object obj;
+        public final Method method;
+        public final FnHttpEvent annotation;
+        public final PathTemplate template; // compiled once from annotation.path()
+        public final Pattern pattern;
+        public final ArgumentResolver[] resolvers;
+        public final MethodHandle invoker; // (Object[])Object
+        public final ResultConverter resultConverter;
+        public final boolean streamsBody; // true if a parameter reads the body as a stream
+        public final RouteMetrics metrics;
+        public BeanInitializer initializer; // set if the bean is initialized lazily
+        private final String name;
         public Handler(Object obj, Method method, FnHttpEvent annotation){
+            this(obj, method, annotation, HttpEventHelper.getObjectMapper());
+        }
+
+        // json readers/writers of the parameter/return types are prepared from the given mapper
+        public Handler(Object obj, Method method, FnHttpEvent annotation, ObjectMapper om){
             this.obj = obj;
             this.method = method;
             this.annotation = annotation;
+            this.name = obj.getClass().getName() + "#" + method.getName();
+            this.template = PathTemplate.compile(annotation.path());
+            this.pattern = template.getPattern();
+            final Parameter[] params = method.getParameters();
+            this.resolvers = new ArgumentResolver[params.length];
+            int bodyParams = 0;
+            boolean streams = false;
+            for(int i = 0 ; i < params.length ; i++){
+                resolvers[i] = createResolver(params[i], template, om);
+                if(resolvers[i] instanceof BodyResolver) bodyParams++;
+                if(isStreamType(params[i].getType())) streams = true;
+            }
+            this.streamsBody = streams;
+            if(bodyParams > 1){
+                throw new IllegalArgumentException("Request body can be bound to one parameter only: " + this);
+            }
+            this.invoker = createInvoker(obj, method);
+            this.resultConverter = createResultConverter(method.getReturnType(), method.getGenericReturnType(), annotation, om);
+            this.metrics = new RouteMetrics(toString(), annotation.method(), annotation.path());
         }
+
+        public Object invoke(RequestContext ctx) throws Exception{
+            final BeanInitializer init = initializer;
+            if(Objects.nonNull(init) && !init.isInitialized()){
+                init.initialize();
+            }
+            try{
+                return invokeHandler(ctx);
+            }finally{
+                ctx.closeFanOut();
+            }
+        }
+
+        private Object invokeHandler(RequestContext ctx) throws Exception{
+            if(!streamsBody){
+                return invokeWithArgs(ctx);
+            }
+            // the body stream is valid only while consumeBody() is running
+            try{
+                return ctx.getInputEvent().consumeBody(is -> {
+                    ctx.setBodyStream(is);
+                    try{
+                        return invokeWithArgs(ctx);
+                    }catch(RuntimeException e){
+                        throw e;
+                    }catch(Exception e){
+                        throw new CheckedInvocationException(e);
+                    }finally{
+                        ctx.setBodyStream(null);
+                    }
+                });
+            }catch(CheckedInvocationException e){
+                throw (Exception)e.getCause();
+            }
+        }
+
+        private Object invokeWithArgs(RequestContext ctx) throws Exception{
+            final long start = System.nanoTime();
+            final Object[] args = new Object[resolvers.length];
+            for(int i = 0 ; i < args.length ; i++){
+                args[i] = resolvers[i].resolve(ctx);
+            }
+            final long bound = System.nanoTime();
+            metrics.recordBind(bound - start);
+            try{
+                final Object result = (Object)invoker.invokeExact(args);
+                metrics.recordInvoke(System.nanoTime() - bound);
+                return result;
+            }catch(Exception | Error e){
+                throw e;
+            }catch(Throwable t){
+                throw new RuntimeException(t.getMessage(), t);
+            }
+        }
+
+        /**
+         * Runs the argument resolvers and the result converter on a synthetic request, without invoking the handler.
+         * Failures are expected (the values are synthetic) and ignored - only the code paths and caches matter.
+         */
+        public void warmUp(RequestContext ctx, ObjectMapper om){
+            ctx.setBodyStream(new ByteArrayInputStream(WarmupRequest.BODY));
+            try{
+                for(ArgumentResolver resolver : resolvers){
+                    try{
+                        resolver.resolve(ctx);
+                    }catch(RuntimeException e){
+                        logger.finest("Warm-up of " + this + " - " + e.getMessage());
+                    }
+                }
+                final Object sample = sampleResult(om);
+                if(Objects.nonNull(sample)) resultConverter.convert(sample, ctx);
+            }catch(Exception e){
+                logger.fine("Couldn't warm up the result of " + this + " - " + e.getMessage());
+            }finally{
+                ctx.setBodyStream(null);
+                ctx.closeFanOut();
+            }
+        }
+
+        /**
+         * An empty value of the return type, null if there is none to convert.
+         * Only JDK types and arrays are instantiated (not Optional) - for an application type, the constructor or the getters
+         * would run on a bean with null fields, so only its serializer is prepared (into the cache the converter uses).
+         */
+        private Object sampleResult(ObjectMapper om) throws Exception{
+            final Class<?> returnType = method.getReturnType();
+            if(returnType.equals(void.class) || returnType.equals(OutputEvent.class) || StreamingOutput.class.isAssignableFrom(returnType)){
+                return null;
+            }else if(returnType.equals(HttpResponse.class)){
+                return HttpResponse.textResponse("");
+            }else if(returnType.equals(String.class)){
+                return "";
+            }
+            final JavaType type = om.constructType(method.getGenericReturnType());
+            if((returnType.isArray() || returnType.getName().startsWith("java.")) && !type.isReferenceType()){
+                try{
+                    // an empty list or map - the element serializers are not touched
+                    return om.convertValue(type.isContainerType() && !type.isMapLikeType() ? Collections.emptyList() : Collections.emptyMap(), type);
+                }catch(IllegalArgumentException e){
+                    // e.g. an abstract JDK type
+                }
+            }
+            om.getSerializerProviderInstance().findTypedValueSerializer(type, true, null);
+            return null;
+        }
+
         public String toString(){
-            return obj.getClass().getName() + "#" + method.getName();
+            return name;
+        }
+
+        private static ArgumentResolver createResolver(Parameter param, PathTemplate template, ObjectMapper om){
+            final ParamBinding binding = ParamBinding.of(param, template);
+            if(Objects.nonNull(binding)){
+                return binding;
+            }
+            final Class<?> paramType = param.getType();
+            if(paramType.equals(InputEvent.class)){
+                return ctx -> ctx.getInputEvent();
+            }else if(paramType.equals(HTTPGatewayContext.class)){
+                return ctx -> ctx.getHttpGatewayContext();
+            }else if(paramType.equals(TracingContext.class)){
+                return ctx -> ctx.getTracingContext();
+            }else if(paramType.equals(FanOut.class)){
+                return ctx -> ctx.getFanOut();
+            }else if(paramType.equals(Deadline.class)){
+                return ctx -> ctx.getDeadline();
+            }else if(paramType.equals(InputStream.class)){
+                return new BodyResolver(ctx -> ctx.getBodyStream());
+            }else if(paramType.equals(Reader.class)){
+                return new BodyResolver(ctx -> new BufferedReader(new InputStreamReader(ctx.getBodyStream(), HttpEventHelper.getCharset(ctx.getInputEvent()))));
+            }else if(paramType.equals(ReadableByteChannel.class)){
+                return new BodyResolver(ctx -> Channels.newChannel(ctx.getBodyStream()));
+            }else if(isRawBodyType(paramType)){
+                return new BodyResolver(ctx -> HttpEventHelper.getInputBody(ctx.getInputEvent(), paramType));
+            }else{
+                // generic type aware, e.g. List<Item>
+                final ObjectReader reader = om.readerFor(om.getTypeFactory().constructType(param.getParameterizedType()));
+                return new BodyResolver(ctx -> HttpEventHelper.getInputBody(ctx.getInputEvent(), reader));
+            }
+        }
+
+        private static String contentTypeOf(String outputType){
+            if(outputType.equals("text")){
+                return "text/plain; charset=UTF-8";
+            }else if(outputType.equals("json")){
+                return "application/json";
+            }else{
+                throw new IllegalArgumentException("Unsupported output type: " + outputType);
+            }
         }
+
+        private static boolean isRawBodyType(Class<?> type){
+            return type.equals(String.class) || type.equals(byte[].class) || type.equals(ByteBuffer.class) || type.equals(JsonNode.class);
+        }
+
+        private static boolean isStreamType(Class<?> type){
+            return type.equals(InputStream.class) || type.equals(Reader.class) || type.equals(ReadableByteChannel.class);
+        }
+
+        private static MethodHandle createInvoker(Object obj, Method method){
+            MethodHandle mh;
+            try{
+                mh = MethodHandles.lookup().unreflect(method);
+            }catch(IllegalAccessException e){
+                method.setAccessible(true);
+                try{
+                    mh = MethodHandles.lookup().unreflect(method);
+                }catch(IllegalAccessException e2){
+                    throw new IllegalArgumentException("Cannot access handler method: " + method, e2);
+                }
+            }
+            final int numParams = method.getParameterCount();
+            return mh.bindTo(obj)
+                .asType(MethodType.genericMethodType(numParams))
+                .asSpreader(Object[].class, numParams);
+        }
+
+        private static ResultConverter createResultConverter(Class<?> returnType, Type genericReturnType, FnHttpEvent annotation, ObjectMapper om){
+            if(returnType.equals(OutputEvent.class)){
+                return (result, ctx) -> (OutputEvent)result;
+            }else if(returnType.equals(HttpResponse.class)){
+                return (result, ctx) -> {
+                    HttpResponse response = (HttpResponse)result;
+                    ctx.getHttpGatewayContext().setStatusCode(response.getStatus());
+                    return response.getOutputEvent();
+                };
+            }else if(StreamingOutput.class.isAssignableFrom(returnType)){
+                final String contentType = contentTypeOf(annotation.outputType());
+                return (result, ctx) -> HttpEventHelper.createStreamingOutputEvent((StreamingOutput)result, contentType);
+            }else if(returnType.equals(String.class)){
+                String outputType = annotation.outputType();
+                if(outputType.equals("text")){
+                    return (result, ctx) -> HttpEventHelper.createTextOutputEvent((String)result);
+                }else if(outputType.equals("json")){
+                    return (result, ctx) -> HttpEventHelper.createJsonOutputEvent((String)result);
+                }else{
+                    throw new IllegalArgumentException("Unsupported output type: " + outputType);
+                }
+            }else{
+                final ObjectWriter writer = createWriter(returnType, genericReturnType, om);
+                return (result, ctx) -> HttpEventHelper.createJsonOutputEvent(result, writer);
+            }
+        }
+
+        // the declared type is used only when it cannot hide properties of a subclass
+        private static ObjectWriter createWriter(Class<?> returnType, Type genericReturnType, ObjectMapper om){
+            if(Modifier.isFinal(returnType.getModifiers()) || Collection.class.isAssignableFrom(returnType) || Map.class.isAssignableFrom(returnType)){
+                return om.writerFor(om.getTypeFactory().constructType(genericReturnType));
+            }
+            return om.writer();
+        }
+    }
+
+
+    // input event and gateway context of the synthetic warm-up requests - a json body, no headers or query
+    private static final class WarmupRequest implements InputEvent, HTTPGatewayContext, QueryParameters {
+        private static final byte[] BODY = "{}".getBytes(StandardCharsets.UTF_8);
+        private static final Headers HEADERS = Headers.fromMap(Collections.singletonMap("Content-Type", "application/json"));
+        private final String method;
+        private final String url;
+
+        private WarmupRequest(String method, String url){
+            this.method = method;
+            this.url = url;
+        }
+
+        // InputEvent
+        public <T> T consumeBody(Function<InputStream, T> dest){ return dest.apply(new ByteArrayInputStream(BODY)); }
+        public String getCallID(){ return "warmup"; }
+        public Instant getDeadline(){ return Instant.MAX; }
+        public Headers getHeaders(){ return HEADERS; }
+        public void close(){}
+
+        // HTTPGatewayContext
+        public InvocationContext getInvocationContext(){ return null; }
+        public String getRequestURL(){ return url; }
+        public String getMethod(){ return method; }
+        public QueryParameters getQueryParameters(){ return this; }
+        public void addResponseHeader(String key, String value){}
+        public void setResponseHeader(String key, String value, String... vs){}
+        public void setStatusCode(int code){}
+
+        // QueryParameters
+        public Optional<String> get(String key){ return Optional.empty(); }
+        public List<String> getValues(String key){ return Collections.emptyList(); }
+        public int size(){ return 0; }
+        public Map<String, List<String>> getAll(){ return Collections.emptyMap(); }
     }
 
+    /**
+     * Routing state built by setUp.
+     * It is immutable and published at once through a volatile field, so handleRequest
+     * can be called from many threads concurrently (e.g. embedded in an HTTP server)
+     * without locking - a request reads the field once and sees a consistent state.
+     */
+    private static final class Routing{
+        private static final Routing EMPTY = new Routing(new RouteTable().freeze(), Collections.emptyMap(), null, Level.INFO, false);
 
-    private Map<String, Object> fnBeans = new LinkedHashMap<>();
-    private Map<String, Handler> handlers =  new LinkedHashMap<>();
+        private final RouteTable routeTable; // frozen
+        private final Map<String, Handler> handlers; // unmodifiable
+        private final AccessLog accessLog; // null if disabled
+        private final Level requestLogLevel;
+        private final boolean rejectUntilReady;
+
+        private Routing(RouteTable routeTable, Map<String, Handler> handlers, AccessLog accessLog, Level requestLogLevel, boolean rejectUntilReady){
+            this.routeTable = routeTable;
+            this.handlers = handlers;
+            this.accessLog = accessLog;
+            this.requestLogLevel = requestLogLevel;
+            this.rejectUntilReady = rejectUntilReady;
+        }
+    }
+
+    private volatile Routing routing = Routing.EMPTY;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private volatile boolean ready = true; // false while warming up in background
+    private final CountDownLatch warmedUp = new CountDownLatch(1);
 
     @FnConfiguration
     public void setUp(RuntimeContext rctx) throws Exception {
@@ -65,82 +427,289 @@ public class EventRouter {
 
         logger.info(String.format("Setup: App=%s, Function=%s", rctx.getAppName(), rctx.getFunctionName()));
 
-        Index index = null;
-        try(InputStream in = EventRouter.class.getResourceAsStream("/META-INF/jandex.idx")){
-            IndexReader reader = new IndexReader(in);
-            index = reader.read();
-            index.getKnownClasses().stream().forEach(c -> logger.fine("jandex: " + c.toString()));
+        // scan classes with FnBean and instanciate
+        setUp(rctx, loadBeanDefinitions());
+    }
+
+    // set up with the given FnBean definitions instead of scanning - for embedding and benchmarks
+    public void setUp(RuntimeContext rctx, List<FnBeanDefinition> definitions) throws Exception {
+        // create and inject FnBeans - the graph is resolved once here
+        final Injector injector = new Injector(definitions, rctx);
+        final List<Object> instances = injector.createBeans(); // same order as definitions
+        final Map<String, Object> fnBeans = new LinkedHashMap<>();
+        for(Object fnBean : instances){
+            fnBeans.put(fnBean.getClass().getName(), fnBean);
         }
 
-        // scan classes with FnBean and instanciate
-        for (AnnotationInstance annotationInstance : index.getAnnotations(DotName.createSimple(FnBean.class.getName()))) {
-            ClassInfo classInfo = annotationInstance.target().asClass();
-            logger.fine("FnBean: " + classInfo);
-            String className = classInfo.toString();
+        // do FnInit - dependencies first, independent beans concurrently, lazy beans on first use
+        final Map<String, String> config = rctx.getConfiguration();
+        final List<BeanInitializer> initializers = createInitializers(rctx, definitions, instances); // same order as definitions
+        final List<BeanInitializer> ordered = orderInitializers(initializers, injector);
+        injector.setInitializers(initializers);
+        initialize(ordered, Integer.parseInt(config.getOrDefault("INIT_PARALLELISM", "4").trim()));
 
-            Class<?> clazz = Class.forName(className);
-            if(Modifier.isAbstract(clazz.getModifiers()) || Modifier.isInterface(clazz.getModifiers())){
-                continue;
-            }
-            Constructor<?> constructor = clazz.getConstructor(new Class[]{});
-            Object fnBean = constructor.newInstance(new Object[]{});
-            fnBeans.put(className, fnBean);
+        // json codec - ObjectMapperProvider if any
+        final ObjectMapper om = resolveObjectMapper(initializers);
 
-            for(Method method : clazz.getMethods()){
-                // search handler methods
+        // register handler methods - built locally and published at the end
+        final Map<String, Handler> handlers = new LinkedHashMap<>();
+        final RouteTable routeTable = new RouteTable();
+        for(int n = 0 ; n < definitions.size() ; n++){
+            final Object fnBean = instances.get(n);
+            final String className = fnBean.getClass().getName();
+            for(Method method : definitions.get(n).getHandlerMethods()){
                 FnHttpEvent annotation = method.getAnnotation(FnHttpEvent.class);
-                if(Objects.nonNull(annotation)){
-                    logger.fine("@FnHttpEvent: " + className + "#" + method.getName());
-                    Handler handler = new Handler(fnBean, method, annotation);
-                    handlers.put(handler.toString(), handler);
+                logger.fine("@FnHttpEvent: " + className + "#" + method.getName());
+                final Handler handler = new Handler(fnBean, method, annotation, om);
+                if(!initializers.get(n).isInitialized()) handler.initializer = initializers.get(n);
+                addHandler(handlers, routeTable, handler);
+            }
+        }
+
+        // metrics - reserved route and periodic log
+        if(Boolean.parseBoolean(config.getOrDefault("METRICS_ENDPOINT", "false"))){
+            final Method method = MetricsEndpoint.class.getMethod("metrics");
+            addHandler(handlers, routeTable, new Handler(new MetricsEndpoint(metrics), method, method.getAnnotation(FnHttpEvent.class), om));
+        }
+        metrics.startReporter(Long.parseLong(config.getOrDefault("METRICS_LOG_INTERVAL", "0").trim()));
+
+        // access log - one line per request instead of the START/END lines
+        AccessLog accessLog = null;
+        Level requestLogLevel = Level.INFO;
+        if(Boolean.parseBoolean(config.getOrDefault("ACCESS_LOG", "false"))){
+            accessLog = new AccessLog();
+            requestLogLevel = Level.FINE;
+        }
+
+        Fn.setFnBeans(fnBeans, lazyInitializers(initializers));
+
+        // warm up - @FnWarmup hooks and handler paths
+        final String warmup = config.getOrDefault("WARMUP", "sync").trim().toLowerCase();
+        final boolean rejectUntilReady = config.getOrDefault("WARMUP_GATE", "wait").trim().equalsIgnoreCase("reject");
+        if(warmup.equals("background")) ready = false;
+
+        // publish the routing state - everything above happens-before any request that reads it
+        routing = new Routing(routeTable.freeze(), Collections.unmodifiableMap(handlers), accessLog, requestLogLevel, rejectUntilReady);
+
+        if(warmup.equals("background")){
+            final Thread t = new Thread(() -> warmUp(rctx, definitions, initializers, om), "fn-event-router-warmup");
+            t.setDaemon(true);
+            t.start();
+        }else if(warmup.equals("off")){
+            warmedUp.countDown();
+        }else{
+            warmUp(rctx, definitions, initializers, om);
+        }
+    }
+
+    // failures are logged and do not prevent the router from becoming ready
+    private void warmUp(RuntimeContext rctx, List<FnBeanDefinition> definitions, List<BeanInitializer> initializers, ObjectMapper om){
+        final long start = System.nanoTime();
+        try{
+            for(int n = 0 ; n < definitions.size() ; n++){
+                final BeanInitializer initializer = initializers.get(n);
+                if(!initializer.isInitialized()) continue; // lazy, not used yet
+                final Object fnBean = initializer.getBean();
+                definitions.get(n).warmUp(fnBean, rctx, (name, e) ->
+                    logger.log(Level.WARNING, "@FnWarmup failed: " + fnBean.getClass().getName() + "#" + name + " - " + e.getMessage(), e));
+            }
+            // handler paths - one synthetic request per handler through the route lookup, resolvers and converter
+            om.writeValueAsBytes(Collections.singletonMap("warmup", Collections.emptyList()));
+            final Routing routing = this.routing;
+            for(Handler handler : routing.handlers.values()){
+                final Map<String, String> pathParams = new HashMap<>();
+                final RouteTable.PathPattern pp = RouteTable.analyze(handler.annotation.path());
+                if(pp.kind != RouteTable.Kind.REGEX){
+                    routing.routeTable.find(handler.annotation.method(), pp.literal, pathParams);
                 }
+                handler.template.getVariables().forEach(v -> pathParams.putIfAbsent(v, "0"));
+                final WarmupRequest request = new WarmupRequest(handler.annotation.method(), handler.annotation.path());
+                handler.warmUp(new RequestContext(request, request, null, pathParams, Deadline.NONE), om);
             }
+        }catch(Exception e){
+            logger.log(Level.WARNING, "Warm-up failed - " + e.getMessage(), e);
+        }finally{
+            ready = true;
+            warmedUp.countDown();
+            logger.fine("Warm-up complete: " + (System.nanoTime() - start) / 1000000 + "ms");
+        }
+    }
 
+    // false if the request should be rejected with 503 - waits until the deadline at most
+    private boolean awaitReady(boolean rejectUntilReady, Deadline deadline){
+        if(rejectUntilReady) return false;
+        try{
+            if(deadline == Deadline.NONE){
+                warmedUp.await();
+                return true;
+            }
+            return warmedUp.await(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
         }
+    }
 
-        // inject FnBeans
-        for(Object fnBean : fnBeans.values()){
-            final String className = fnBean.getClass().getName();
-            for(Field field : fnBean.getClass().getDeclaredFields()){
-                if(Objects.nonNull(field.getAnnotation(FnInject.class))){
-                    logger.fine("@FnInject: " + className + "#" + field.getName());
-                    String type = field.getType().getName();
-                    Object injectee = fnBeans.get(type);
-                    if(Objects.isNull(injectee)){
-                        throw new IllegalArgumentException("No such FnBean exists: " + type);
-                    }
-                    field.setAccessible(true);
-                    field.set(fnBean, injectee);
-                    logger.fine("@FnInject complete: " + className + "#" + field.getName());
+    private List<BeanInitializer> createInitializers(RuntimeContext rctx, List<FnBeanDefinition> definitions, List<Object> instances){
+        final List<BeanInitializer> initializers = new ArrayList<>();
+        for(int n = 0 ; n < definitions.size() ; n++){
+            final FnBeanDefinition definition = definitions.get(n);
+            final FnBean annotation = definition.getBeanClass().getAnnotation(FnBean.class);
+            final boolean lazy = Objects.nonNull(annotation) && annotation.lazy();
+            initializers.add(new BeanInitializer(instances.get(n), definition, lazy, rctx));
+        }
+        return initializers;
+    }
+
+    /**
+     * Links each initializer to the beans injected into it, and returns them dependencies first (Kahn),
+     * otherwise in definition order. A cycle is broken at its first bean in definition order:
+     * only the edges to already ordered beans are kept, so the graph is acyclic.
+     */
+    private static List<BeanInitializer> orderInitializers(List<BeanInitializer> initializers, Injector injector){
+        final List<List<BeanInitializer>> dependencies = new ArrayList<>();
+        for(int n = 0 ; n < initializers.size() ; n++){
+            dependencies.add(injector.getDependencies(n).stream().map(initializers::get).collect(Collectors.toList()));
+        }
+        final List<BeanInitializer> ordered = new ArrayList<>();
+        final List<BeanInitializer> remaining = new ArrayList<>(initializers);
+        while(!remaining.isEmpty()){
+            BeanInitializer next = null;
+            for(BeanInitializer candidate : remaining){
+                final List<BeanInitializer> deps = dependencies.get(initializers.indexOf(candidate));
+                if(ordered.containsAll(deps)){
+                    next = candidate;
+                    break;
                 }
             }
+            if(Objects.isNull(next)){
+                next = remaining.get(0);
+                logger.fine("Circular @FnInject dependency - " + next + " is initialized first");
+            }
+            for(BeanInitializer dep : dependencies.get(initializers.indexOf(next))){
+                if(ordered.contains(dep)) next.addDependency(dep);
+            }
+            ordered.add(next);
+            remaining.remove(next);
         }
+        return ordered;
+    }
 
-        // do FnInit
-        for(Object fnBean : fnBeans.values()){
-            final String className = fnBean.getClass().getName();
-            for(Method method : fnBean.getClass().getDeclaredMethods()){
-                if(Objects.nonNull(method.getAnnotation(FnInit.class))){
-                    logger.fine("@FnInit: " + className + "#" + method.getName());
-                    // do init 
-                    Class<?>[] parameterTypes = method.getParameterTypes();
-                    int numParams = parameterTypes.length;
-                    Object[] parameters = new Object[numParams];
-                    for(int i = 0 ; i < numParams ; i++){
-                        Class<?> paramType = parameterTypes[i];
-                        if(paramType.equals(RuntimeContext.class)){
-                            parameters[i] = rctx;
-                        }else{
-                            throw new IllegalArgumentException("Parameter type not supported for @FnInit: " + paramType);
-                        }
-                    }
-                    method.invoke(fnBean, parameters);
-                    logger.fine("@FnInit complete: " + className + "#" + method.getName());
+    // initializes the eager beans in dependency order, on a bounded pool if parallelism > 1
+    private void initialize(List<BeanInitializer> ordered, int parallelism) throws Exception {
+        final List<BeanInitializer> eager = ordered.stream().filter(i -> !i.isLazy()).collect(Collectors.toList());
+        if(parallelism <= 1 || eager.size() <= 1){
+            for(BeanInitializer initializer : eager){
+                initializer.initialize();
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, eager.size()), r -> {
+            final Thread t = new Thread(r, "fn-event-router-init");
+            t.setDaemon(true);
+            return t;
+        });
+        try{
+            // submitted in dependency order - a task initializes (or waits for) its dependencies itself
+            final List<Future<?>> futures = new ArrayList<>();
+            for(BeanInitializer initializer : eager){
+                futures.add(executor.submit(() -> { initializer.initialize(); return null; }));
+            }
+            for(Future<?> future : futures){
+                try{
+                    future.get();
+                }catch(ExecutionException e){
+                    if(e.getCause() instanceof Exception) throw (Exception)e.getCause();
+                    throw e;
                 }
             }
+        }finally{
+            executor.shutdownNow();
         }
+    }
 
-        Fn.setFnBeans(fnBeans);
+    private static Map<String, BeanInitializer> lazyInitializers(List<BeanInitializer> initializers){
+        final Map<String, BeanInitializer> map = new HashMap<>();
+        initializers.stream().filter(i -> !i.isInitialized()).forEach(i -> map.put(i.getBean().getClass().getName(), i));
+        return map;
+    }
+
+    private void addHandler(Map<String, Handler> handlers, RouteTable routeTable, Handler handler){
+        handlers.put(handler.toString(), handler);
+        routeTable.add(handler);
+        metrics.register(handler.metrics);
+    }
+
+    public MetricsRegistry getMetrics(){
+        return metrics;
+    }
+
+    private ObjectMapper resolveObjectMapper(List<BeanInitializer> initializers) throws Exception {
+        final List<BeanInitializer> found = initializers.stream()
+            .filter(i -> i.getBean() instanceof ObjectMapperProvider)
+            .collect(Collectors.toList());
+        for(BeanInitializer initializer : found){
+            initializer.initialize(); // even if lazy
+        }
+        final List<ObjectMapperProvider> providers = found.stream()
+            .map(i -> (ObjectMapperProvider)i.getBean())
+            .collect(Collectors.toList());
+        if(providers.isEmpty()){
+            return HttpEventHelper.getObjectMapper();
+        }
+        if(providers.size() > 1){
+            throw new IllegalStateException("Only one ObjectMapperProvider is allowed: " + providers);
+        }
+        final ObjectMapper om = Objects.requireNonNull(providers.get(0).getObjectMapper(), "ObjectMapperProvider returned null");
+        logger.fine("ObjectMapper provided by " + providers.get(0).getClass().getName());
+        HttpEventHelper.setObjectMapper(om);
+        return om;
+    }
+
+    // generated definitions (fn-event-router-processor), plus the FnBeans in the Jandex indexes which have none
+    private List<FnBeanDefinition> loadBeanDefinitions() throws Exception {
+        final List<FnBeanDefinition> definitions = new ArrayList<>();
+        final Iterator<FnBeanDefinition> services = ServiceLoader.load(FnBeanDefinition.class, EventRouter.class.getClassLoader()).iterator();
+        while(services.hasNext()){
+            try{
+                definitions.add(services.next());
+            }catch(ServiceConfigurationError e){
+                // e.g. a stale entry left by an incremental build
+                logger.warning("Ignored FnBean definition - " + e.getMessage());
+            }
+        }
+        logger.fine("Generated FnBean definitions: " + definitions.size());
+        final Set<Class<?>> defined = definitions.stream().map(FnBeanDefinition::getBeanClass).collect(Collectors.toSet());
+
+        final Enumeration<URL> indexes = EventRouter.class.getClassLoader().getResources("META-INF/jandex.idx");
+        if(!indexes.hasMoreElements() && definitions.isEmpty()){
+            throw new IllegalStateException("Neither generated FnBean definitions nor /META-INF/jandex.idx was found");
+        }
+        while(indexes.hasMoreElements()){
+            final Index index;
+            try(InputStream in = indexes.nextElement().openStream()){
+                IndexReader reader = new IndexReader(in);
+                index = reader.read();
+                if(logger.isLoggable(Level.FINE)){
+                    index.getKnownClasses().stream().forEach(c -> logger.fine("jandex: " + c.toString()));
+                }
+            }
+
+            for (AnnotationInstance annotationInstance : index.getAnnotations(DotName.createSimple(FnBean.class.getName()))) {
+                ClassInfo classInfo = annotationInstance.target().asClass();
+                logger.fine("FnBean: " + classInfo);
+                String className = classInfo.toString();
+
+                Class<?> clazz = Class.forName(className);
+                if(Modifier.isAbstract(clazz.getModifiers()) || Modifier.isInterface(clazz.getModifiers())){
+                    continue;
+                }
+                if(defined.add(clazz)){
+                    definitions.add(new ReflectiveBeanDefinition(clazz));
+                }
+            }
+        }
+        return definitions;
     }
 
     public OutputEvent handleRequest(InputEvent inputEvent, HTTPGatewayContext hctx, TracingContext tctx) {
@@ -150,81 +719,76 @@ public class EventRouter {
         requestURL = ndx >= 0 ? requestURL.substring(0, ndx) : requestURL; 
 
         final String method = hctx.getMethod();
-        logger.info(String.format("HTTP Request (START): method=%s, requestURL=%s", method, requestURL));
+        final long start = System.nanoTime();
+        final Routing routing = this.routing; // read once - a consistent snapshot for this request
+        final Level requestLogLevel = routing.requestLogLevel;
+        final AccessLog accessLog = routing.accessLog;
+        // per request lines are INFO, or FINE when the access log is enabled
+        final boolean verbose = logger.isLoggable(requestLogLevel);
+        if(verbose) logger.log(requestLogLevel, "HTTP Request (START): method=" + method + ", requestURL=" + requestURL);
 
+        Handler handler = null;
+        int status = 200; // as far as the router knows
+        final Deadline deadline = Deadline.of(inputEvent, hctx);
         try{
-            final List<Handler> candidates = new ArrayList<>();
-            for(Map.Entry<String, Handler> entry : handlers.entrySet()){
-                logger.finer("Handler entry: " + entry.getKey());
-                final String c = entry.getKey();
-                final Handler handler = entry.getValue();
-                final FnHttpEvent httpEvent = handler.annotation;
-                if(Objects.nonNull(httpEvent)){
-                    final String m = httpEvent.method();
-                    final String p = httpEvent.path();
-                    logger.finer(String.format("Evaluating EventHandler: class=%s, method=%s, path=%s", c, m, p));
-                    if((m.equalsIgnoreCase("ANY") || method.equalsIgnoreCase(m)) && requestURL.matches(p)){
-                        candidates.add(handler);
-                    }
-                }else{
-                    logger.finer(String.format("No annotation found: " + c));
-                }
+            // the caller has already given up - don't spend (billed) time on it
+            if(deadline.isExpired()){
+                status = 504;
+                logger.warning("HTTP 504 - deadline exceeded before dispatch: method=" + method + ", requestURL=" + requestURL + ", deadline=" + deadline);
+                hctx.setStatusCode(status);
+                return HttpEventHelper.createTextOutputEvent("Gateway Timeout - deadline exceeded");
+            }
+            if(!ready && !awaitReady(routing.rejectUntilReady, deadline)){
+                status = 503;
+                hctx.setStatusCode(status);
+                return HttpEventHelper.createTextOutputEvent("Service Unavailable - warming up");
             }
+            final Map<String, String> pathParams = new HashMap<>();
+            final List<Handler> candidates = routing.routeTable.find(method, requestURL, pathParams);
             if(candidates.size() == 0){
+                metrics.unmatched();
                 throw new IllegalStateException(String.format("No handler was found - method=%s, path=%s", method, requestURL));
             }else if(candidates.size() > 1){
-                String candidateNames = candidates.stream().map(h -> h.getClass().getName()).collect(Collectors.joining(","));
+                String candidateNames = candidates.stream().map(h -> h.toString()).collect(Collectors.joining(","));
                 throw new IllegalStateException(String.format("Found multiple handlers - method=%s, path=%s >> %s", method, requestURL,candidateNames));
             }
-            final Handler handler = candidates.get(0);
-            logger.info("Matched handler: " + handler);
-            Class<?>[] parameterTypes = handler.method.getParameterTypes();
-            int numParams = parameterTypes.length;
-            Object[] parameters = new Object[numParams];
-            for(int i = 0 ; i < numParams ; i++){
-                Class<?> paramType = parameterTypes[i];
-                if(paramType.equals(InputEvent.class)){
-                    parameters[i] = inputEvent;
-                }else if(paramType.equals(HTTPGatewayContext.class)){
-                    parameters[i] = hctx;
-                }else if(paramType.equals(TracingContext.class)){
-                    parameters[i] = tctx;
-                }else{
-                    parameters[i] = HttpEventHelper.getInputBody(inputEvent, paramType);
-                }
-            }
-            Object result = handler.method.invoke(handler.obj, parameters);
-            Class<?> returnType = handler.method.getReturnType();
+            handler = candidates.get(0);
+            handler.metrics.request();
+            if(verbose) logger.log(requestLogLevel, "Matched handler: " + handler);
+            final RequestContext ctx = new RequestContext(inputEvent, hctx, tctx, pathParams, deadline);
+            final Object result = handler.invoke(ctx);
             if(Objects.isNull(result)){
                 return OutputEvent.emptyResult(OutputEvent.Status.Success);
-            }else if(returnType.equals(OutputEvent.class)){
-                return (OutputEvent)result;
-            }else if(returnType.equals(HttpResponse.class)){
-                HttpResponse response = (HttpResponse)result;
-                hctx.setStatusCode(response.getStatus());
-                return response.getOutputEvent();
-            }else if(returnType.equals(String.class)){
-                String outputType = handler.annotation.outputType();
-                if(outputType.equals("text")){
-                    return HttpEventHelper.createTextOutputEvent((String)result);
-                }else if(outputType.equals("json")){
-                    return HttpEventHelper.createJsonOutputEvent((String)result);
-                }else{
-                    throw new IllegalArgumentException("Unsupported output type: " + outputType);
-                }
-            }else{
-                return HttpEventHelper.createJsonOutputEvent(result);
             }
+            final long serializeStart = System.nanoTime();
+            final OutputEvent output = handler.resultConverter.convert(result, ctx);
+            handler.metrics.recordSerialize(System.nanoTime() - serializeStart);
+            if(result instanceof HttpResponse) status = ((HttpResponse)result).getStatus();
+            return output;
         } catch (Exception e) {
-            Throwable cause = e;
-            if(e instanceof InvocationTargetException){
-                cause = Optional.ofNullable(e.getCause()).orElse(e);
+            if(Objects.nonNull(handler)) handler.metrics.error();
+            if(e instanceof HttpStatusException){
+                status = ((HttpStatusException)e).getStatus();
+                logger.warning("HTTP " + status + " - " + e.getMessage());
+                hctx.setStatusCode(status);
+                return HttpEventHelper.createTextOutputEvent(e.getMessage());
             }
-            logger.log(Level.SEVERE, "Error while processing request - " + cause.getMessage(), cause);
-            hctx.setStatusCode(500 /*HttpStatus.SC_INTERNAL_SERVER_ERROR*/);
+            if(deadline.isExpired()){
+                // most likely a timeout of the handler's own calls - the caller has given up
+                status = 504;
+                logger.warning("HTTP 504 - deadline exceeded: " + deadline + " - " + e.getMessage());
+                hctx.setStatusCode(status);
+                return HttpEventHelper.createTextOutputEvent("Gateway Timeout - deadline exceeded");
+            }
+            logger.log(Level.SEVERE, "Error while processing request - " + e.getMessage(), e);
+            status = 500;
+            hctx.setStatusCode(status /*HttpStatus.SC_INTERNAL_SERVER_ERROR*/);
             return OutputEvent.emptyResult(OutputEvent.Status.Success);
         } finally {
-            logger.info(String.format("HTTP Request (END): method=%s, requestURL=%s", method, requestURL));
+            if(verbose) logger.log(requestLogLevel, "HTTP Request (END): method=" + method + ", requestURL=" + requestURL);
+            if(Objects.nonNull(accessLog)){
+                accessLog.log(method, requestURL, status, System.nanoTime() - start, handler, inputEvent.getCallID());
+            }
         }
 
     }
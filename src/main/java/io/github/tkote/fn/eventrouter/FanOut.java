@@ -0,0 +1,265 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs blocking calls of one request concurrently - N sequential backend calls take max-of-N.
+ * Inject it as a handler parameter (like TracingContext), fork the calls and join them:
+ * <pre>
+ * try(FanOut fanOut = ...){
+ *     Future&lt;A&gt; a = fanOut.fork(() -&gt; callA());
+ *     Future&lt;B&gt; b = fanOut.fork(() -&gt; callB());
+ *     fanOut.join();
+ *     return combine(a.get(), b.get());
+ * }
+ * </pre>
+ * The calls run on virtual threads if the runtime supports them (Java 21+), otherwise on a shared pool of daemon threads.
+ * All of them share the deadline of the request (see Deadline) minus a margin for the response.
+ * When a call fails or the deadline passes, the calls still running are cancelled (interrupted).
+ * A call blocked in I/O that isn't interruptible (e.g. Apache HttpClient) registers its abort with onCancel.
+ * The handler returns only after join, so no call outlives the request.
+ * Not thread-safe - fork and join from the handler thread.
+ */
+public class FanOut implements AutoCloseable {
+    private final static Logger logger = Logger.getLogger(FanOut.class.getName());
+
+    // time left for the router to write the response after the deadline of the calls
+    public static final long DEADLINE_MARGIN_MILLIS = 100;
+
+    private static final ExecutorService executor = createExecutor();
+
+    // the forked call running on the current thread
+    private static final ThreadLocal<Task<?>> current = new ThreadLocal<>();
+
+    private final Instant deadline;
+    private final List<Future<?>> forked = new ArrayList<>();
+    private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+    private int pending = 0;
+
+    public FanOut(Instant deadline){
+        this.deadline = Objects.requireNonNull(deadline);
+    }
+
+    // the deadline of the request, with the margin
+    public static FanOut of(RequestContext ctx){
+        return new FanOut(ctx.getDeadline().minus(Duration.ofMillis(DEADLINE_MARGIN_MILLIS)).getInstant());
+    }
+
+    public Instant getDeadline(){
+        return deadline;
+    }
+
+    // starts a call, its result is available by Future#get() after join
+    public <T> Future<T> fork(Callable<T> call){
+        final Task<T> task = new Task<>(call);
+        forked.add(task);
+        pending++;
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Waits for all the forked calls.
+     * The first failure is thrown as is (after cancelling the others), and
+     * HttpStatusException(504) is thrown if the deadline passes first.
+     */
+    public void join() throws Exception {
+        while(pending > 0){
+            final Future<?> future = next();
+            pending--;
+            if(future.isCancelled()) continue;
+            try{
+                future.get();
+            }catch(ExecutionException e){
+                cancel();
+                throw unwrap(e);
+            }
+        }
+    }
+
+    // forks all the calls and returns their results in the same order
+    public <T> List<T> all(List<? extends Callable<T>> calls) throws Exception {
+        final List<Future<T>> futures = new ArrayList<>();
+        calls.forEach(c -> futures.add(fork(c)));
+        join();
+        final List<T> results = new ArrayList<>();
+        for(Future<T> future : futures){
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    // forks all the calls, returns the first successful result and cancels the rest
+    public <T> T any(List<? extends Callable<T>> calls) throws Exception {
+        if(calls.isEmpty()){
+            throw new IllegalArgumentException("No calls to fork");
+        }
+        final List<Future<T>> futures = new ArrayList<>();
+        calls.forEach(c -> futures.add(fork(c)));
+        Exception failure = null;
+        while(pending > 0){
+            final Future<?> future = next();
+            pending--;
+            if(!futures.contains(future) || future.isCancelled()) continue;
+            try{
+                @SuppressWarnings("unchecked")
+                final T result = (T)future.get();
+                cancel();
+                return result;
+            }catch(ExecutionException e){
+                final Exception cause = unwrap(e);
+                if(Objects.isNull(failure)) failure = cause; else failure.addSuppressed(cause);
+            }
+        }
+        throw Objects.nonNull(failure) ? failure : new IllegalStateException("All the calls were cancelled");
+    }
+
+    /**
+     * Registers how to abort the current call when it is cancelled, in addition to the interrupt.
+     * Runs the abort at once if the call has already been cancelled, does nothing outside a forked call.
+     */
+    public static void onCancel(Runnable abort){
+        final Task<?> task = current.get();
+        if(Objects.nonNull(task)) task.onCancel(abort);
+    }
+
+    // cancels the calls still running
+    public void cancel(){
+        for(Future<?> future : forked){
+            if(!future.isDone()) future.cancel(true);
+        }
+    }
+
+    @Override
+    public void close(){
+        cancel();
+    }
+
+    // the next completed call, or null if none completes within the timeout - HttpStatusException(504) if the deadline passes first
+    Future<?> poll(long timeoutMillis) throws InterruptedException {
+        if(timeoutMillis >= remainingMillis()){
+            final Future<?> future = next();
+            pending--;
+            return future;
+        }
+        final Future<?> future;
+        try{
+            future = completed.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }catch(InterruptedException e){
+            cancel();
+            throw e;
+        }
+        if(Objects.nonNull(future)) pending--;
+        return future;
+    }
+
+    private class Task<T> extends FutureTask<T>{
+        private final List<Runnable> aborts = new CopyOnWriteArrayList<>();
+
+        private Task(Callable<T> call){
+            super(call);
+        }
+
+        @Override
+        public void run(){
+            current.set(this);
+            try{
+                super.run();
+            }finally{
+                current.remove();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning){
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if(cancelled){
+                for(Runnable abort : aborts){
+                    if(aborts.remove(abort)) abort(abort);
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        protected void done(){
+            completed.add(this);
+        }
+
+        // cancel may have run before the abort was added - removal decides which one runs it, exactly once
+        private void onCancel(Runnable abort){
+            aborts.add(abort);
+            if(isCancelled() && aborts.remove(abort)) abort(abort);
+        }
+    }
+
+    private static void abort(Runnable abort){
+        try{
+            abort.run();
+        }catch(RuntimeException e){
+            logger.log(Level.FINE, "Failed to abort a cancelled call", e);
+        }
+    }
+
+    private long remainingMillis(){
+        return deadline.equals(Instant.MAX) ? Long.MAX_VALUE : Math.max(0, deadline.toEpochMilli() - System.currentTimeMillis());
+    }
+
+    private Future<?> next() throws InterruptedException {
+        final long remaining = remainingMillis();
+        final Future<?> future;
+        try{
+            future = completed.poll(remaining, TimeUnit.MILLISECONDS);
+        }catch(InterruptedException e){
+            cancel();
+            throw e;
+        }
+        if(Objects.isNull(future)){
+            cancel();
+            throw new HttpStatusException(504, "Gateway Timeout - fan-out deadline exceeded: " + deadline);
+        }
+        return future;
+    }
+
+    static Exception unwrap(ExecutionException e){
+        final Throwable cause = e.getCause();
+        if(cause instanceof Exception) return (Exception)cause;
+        if(cause instanceof Error) throw (Error)cause;
+        return e;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() if available - looked up by reflection to keep the Java 11 target
+    private static ExecutorService createExecutor(){
+        try{
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            final ExecutorService es = (ExecutorService)method.invoke(null);
+            logger.fine("FanOut uses virtual threads");
+            return es;
+        }catch(ReflectiveOperationException e){
+            logger.fine("FanOut uses platform threads");
+            return Executors.newCachedThreadPool(r -> {
+                final Thread t = new Thread(r, "fn-event-router-fanout");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+}
@@ -1,21 +1,108 @@
 package io.github.tkote.fn.eventrouter;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
+/**
+ * Static access to the FnBeans.
+ * The maps are copied into unmodifiable snapshots and published once by EventRouter#setUp,
+ * so getFnBean() can be called from any thread.
+ * A bean is got by its class or by a supertype - the exact class first, then the only assignable bean
+ * (as Injector resolves @FnInject), looked up in an index built at setup time.
+ */
 public class Fn {
-    private static Map<String, Object> fnBeans = null;
+    private static volatile Map<String, Object> fnBeans = null;
+    private static volatile Map<String, BeanInitializer> lazyBeans = Collections.emptyMap();
+    // type name to the name the bean is registered by; the names of the candidates if ambiguous
+    private static volatile Map<String, String> types = Collections.emptyMap();
+    private static volatile Map<String, String> ambiguous = Collections.emptyMap();
 
     public static void setFnBeans(Map<String, Object> fb){
+        setFnBeans(fb, Collections.emptyMap());
+    }
+
+    // lazy beans are initialized when they are got for the first time
+    static synchronized void setFnBeans(Map<String, Object> fb, Map<String, BeanInitializer> lazy){
         if(Objects.nonNull(fnBeans)){
             throw new IllegalStateException("You cannot set fnBeans more than once.");
         }
-        fnBeans = fb;
+        lazyBeans = Collections.unmodifiableMap(new LinkedHashMap<>(lazy));
+        indexTypes(fb);
+        fnBeans = Collections.unmodifiableMap(new LinkedHashMap<>(fb)); // written last, read first
+    }
+
+    // every supertype of every bean - the exact class (or the name registered) first, then the only assignable bean
+    private static void indexTypes(Map<String, Object> fb){
+        final Map<String, String> exact = new HashMap<>();
+        final Map<String, Set<String>> assignable = new HashMap<>();
+        fb.forEach((name, bean) -> {
+            exact.put(name, name);
+            final Set<Class<?>> supertypes = supertypes(bean.getClass());
+            supertypes.add(bean.getClass());
+            for(Class<?> type : supertypes){
+                assignable.computeIfAbsent(type.getName(), k -> new LinkedHashSet<>()).add(name);
+            }
+        });
+        final Map<String, String> index = new HashMap<>();
+        final Map<String, String> conflicts = new HashMap<>();
+        assignable.forEach((type, candidates) -> {
+            if(exact.containsKey(type)) return;
+            if(1 == candidates.size()) index.put(type, candidates.iterator().next());
+            else conflicts.put(type, String.join(",", candidates));
+        });
+        index.putAll(exact);
+        types = Collections.unmodifiableMap(index);
+        ambiguous = Collections.unmodifiableMap(conflicts);
+    }
+
+    // the superclasses and interfaces, not the class itself
+    private static Set<Class<?>> supertypes(Class<?> clazz){
+        final Set<Class<?>> supertypes = new HashSet<>();
+        final Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(clazz);
+        while(!queue.isEmpty()){
+            final Class<?> c = queue.poll();
+            if(Objects.nonNull(c.getSuperclass()) && supertypes.add(c.getSuperclass())) queue.add(c.getSuperclass());
+            for(Class<?> i : c.getInterfaces()){
+                if(supertypes.add(i)) queue.add(i);
+            }
+        }
+        return supertypes;
     }
 
     @SuppressWarnings("unchecked")
     public static <T> T getFnBean(Class<T> clazz){
+        final Map<String, Object> fnBeans = Fn.fnBeans;
         Objects.requireNonNull(fnBeans);
-        return (T)fnBeans.get(clazz.getName());
+        final Map<String, BeanInitializer> lazyBeans = Fn.lazyBeans;
+        final String name = types.get(clazz.getName());
+        if(Objects.isNull(name)){
+            final String candidates = ambiguous.get(clazz.getName());
+            if(Objects.nonNull(candidates)){
+                throw new IllegalArgumentException("Ambiguous FnBean for " + clazz.getName() + ": " + candidates);
+            }
+            return null;
+        }
+        if(!lazyBeans.isEmpty()){
+            final BeanInitializer initializer = lazyBeans.get(name);
+            if(Objects.nonNull(initializer) && !initializer.isInitialized()){
+                try{
+                    initializer.initialize();
+                }catch(RuntimeException e){
+                    throw e;
+                }catch(Exception e){
+                    throw new RuntimeException("Couldn't initialize FnBean - " + e.getMessage(), e);
+                }
+            }
+        }
+        return (T)fnBeans.get(name);
     }
 }
@@ -0,0 +1,50 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import com.fnproject.fn.api.RuntimeContext;
+
+/**
+ * Definition of a FnBean - how to create, inject and initialize it, and where its handler methods are.
+ * Implementations are generated at compile time by fn-event-router-processor and registered
+ * as services (META-INF/services/io.github.tkote.fn.eventrouter.FnBeanDefinition).
+ * Generated definitions call the constructor and the annotated members directly (reflection only for private members).
+ * FnBeans without a generated definition are found in the Jandex index and use ReflectiveBeanDefinition.
+ */
+public interface FnBeanDefinition {
+
+    /**
+     * Resolves injection points, implemented by Injector.
+     * Same rules as @FnInject - the FnBean of exactly that class, otherwise the only one assignable to the type.
+     */
+    interface Resolver {
+
+        // the FnBean (created first if needed and recorded as a dependency), or RuntimeContext
+        <T> T resolve(Class<T> type);
+
+        // a provider which initializes a lazy FnBean on first get(), not a dependency
+        <T> Supplier<T> provider(Class<T> type);
+
+    }
+
+    Class<?> getBeanClass();
+
+    // creates the bean - by the @FnInject constructor if any, otherwise by the public no-arg constructor
+    Object create(Resolver resolver) throws Exception;
+
+    // injects the @FnInject fields, then calls the @FnInject methods
+    void inject(Object bean, Resolver resolver) throws Exception;
+
+    // calls the @FnInit methods
+    void init(Object bean, RuntimeContext rctx) throws Exception;
+
+    // calls the @FnWarmup methods - a failure is reported with the method name and the rest are still called
+    void warmUp(Object bean, RuntimeContext rctx, BiConsumer<String, Exception> onFailure);
+
+    // methods annotated with @FnHttpEvent - their annotations and parameter types are needed for binding
+    List<Method> getHandlerMethods() throws Exception;
+
+}
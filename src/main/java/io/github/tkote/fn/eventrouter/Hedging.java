@@ -0,0 +1,191 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import io.github.tkote.fn.eventrouter.metrics.LatencyHistogram;
+import io.github.tkote.fn.eventrouter.resilience.RetryBudget;
+
+/**
+ * Hedged requests and retries of outbound calls, for idempotent calls only.
+ * When an attempt takes longer than the given percentile of the latencies recorded for its upstream,
+ * a second attempt is started and the first response wins (the other is cancelled - interrupted,
+ * and aborted if it registered with FanOut.onCancel).
+ * A failed attempt (an exception, or a response matching the retryable predicate) is retried,
+ * except for an HttpStatusException (e.g. 503 of an open CircuitBreaker).
+ * Both kinds of extra attempts are limited by maxAttempts per call and by the shared RetryBudget,
+ * and all of them share the deadline of the call.
+ * No hedging until minSamples latencies have been recorded for the upstream.
+ * Thread-safe - one instance is shared by all requests.
+ */
+public class Hedging {
+    private final static Logger logger = Logger.getLogger(Hedging.class.getName());
+
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayMillis;
+    private final int maxAttempts;
+    private final RetryBudget budget;
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param percentile latency percentile after which a hedged attempt is started, 0 disables hedging
+     * @param minSamples latencies recorded for the upstream before hedging
+     * @param minDelayMillis lower bound of the hedging delay
+     * @param maxAttempts attempts per call including the first one, 1 disables both hedging and retries
+     * @param budget shared by all the upstreams
+     */
+    public Hedging(double percentile, int minSamples, long minDelayMillis, int maxAttempts, RetryBudget budget){
+        if(percentile < 0 || percentile >= 100){
+            throw new IllegalArgumentException("Invalid hedging percentile: " + percentile);
+        }
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minDelayMillis = minDelayMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.budget = Objects.requireNonNull(budget);
+    }
+
+    /**
+     * Runs the call with hedging and retries.
+     * Returns the first response not matching retryable, or the last one if all of them match.
+     * Throws the failure of the last attempt if none succeeds,
+     * and HttpStatusException(504) if the deadline passes first.
+     */
+    public <T> T execute(String upstream, Callable<T> call, Predicate<? super T> retryable, Deadline deadline) throws Exception {
+        final LatencyHistogram histogram = latencies.computeIfAbsent(upstream, k -> new LatencyHistogram());
+        budget.deposit();
+        if(1 == maxAttempts){
+            return timed(histogram, call).call();
+        }
+
+        final long hedgeDelay = hedgeDelayMillis(histogram);
+        final long start = System.nanoTime();
+        try(FanOut fanOut = new FanOut(deadline.getInstant())){
+            fanOut.fork(timed(histogram, call));
+            int attempts = 1;
+            int running = 1;
+            boolean hedgeable = hedgeDelay >= 0;
+            T last = null;
+            Exception failure = null;
+            while(running > 0){
+                final long wait = hedgeable && attempts < maxAttempts
+                    ? Math.max(0, hedgeDelay - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)) : Long.MAX_VALUE;
+                final Future<?> future = fanOut.poll(wait);
+                if(Objects.isNull(future)){
+                    // slower than the percentile - hedge once
+                    hedgeable = false;
+                    if(budget.tryWithdraw()){
+                        logger.fine("Hedging " + upstream + " after " + hedgeDelay + "ms");
+                        hedges.increment();
+                        fanOut.fork(timed(histogram, call));
+                        attempts++;
+                        running++;
+                    }
+                    continue;
+                }
+                running--;
+                if(future.isCancelled()) continue;
+                try{
+                    @SuppressWarnings("unchecked")
+                    final T result = (T)future.get();
+                    if(!retryable.test(result)) return result; // closing the fan-out cancels the other attempt
+                    last = result;
+                }catch(ExecutionException e){
+                    failure = FanOut.unwrap(e);
+                }
+                // retry only when no other attempt is in flight, and not a deliberate status such as an open circuit
+                if(0 == running && attempts < maxAttempts && !(failure instanceof HttpStatusException)
+                        && !deadline.isExpired() && budget.tryWithdraw()){
+                    logger.fine("Retrying " + upstream + " - " + (Objects.nonNull(failure) ? failure.getMessage() : "retryable response"));
+                    retries.increment();
+                    fanOut.fork(timed(histogram, call));
+                    attempts++;
+                    running++;
+                }
+            }
+            // a retryable response is still better than a failure
+            if(Objects.nonNull(last)) return last;
+            throw Objects.nonNull(failure) ? failure : new IllegalStateException("All the attempts were cancelled: " + upstream);
+        }
+    }
+
+    // -1 if no hedging (disabled, or too few samples yet)
+    public long hedgeDelayMillis(String upstream){
+        final LatencyHistogram histogram = latencies.get(upstream);
+        return Objects.isNull(histogram) ? -1 : hedgeDelayMillis(histogram);
+    }
+
+    private long hedgeDelayMillis(LatencyHistogram histogram){
+        if(0 == percentile || histogram.getCount() < minSamples) return -1;
+        return Math.max(minDelayMillis, TimeUnit.NANOSECONDS.toMillis(histogram.snapshot().getPercentile(percentile)));
+    }
+
+    /**
+     * Records the latency of successful attempts.
+     * An attempt interrupted or aborted by cancellation is recorded as well, with the time it ran as a lower bound -
+     * otherwise the slow attempts cut off by hedging would never be seen and the threshold would keep falling.
+     */
+    private static <T> Callable<T> timed(LatencyHistogram histogram, Callable<T> call){
+        return () -> {
+            final long start = System.nanoTime();
+            try{
+                final T result = call.call();
+                histogram.record(System.nanoTime() - start);
+                return result;
+            }catch(Exception e){
+                // an aborted socket fails with a plain IOException, but the thread has been interrupted
+                if(e instanceof InterruptedException || e instanceof InterruptedIOException || Thread.currentThread().isInterrupted()){
+                    histogram.record(System.nanoTime() - start);
+                }
+                throw e;
+            }
+        };
+    }
+
+    public LatencyHistogram getLatencies(String upstream){
+        return latencies.get(upstream);
+    }
+
+    public long getHedges(){
+        return hedges.sum();
+    }
+
+    public long getRetries(){
+        return retries.sum();
+    }
+
+    public RetryBudget getBudget(){
+        return budget;
+    }
+
+    public Map<String, Object> toMap(){
+        final Map<String, Object> upstreams = new LinkedHashMap<>();
+        latencies.forEach((upstream, histogram) -> {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("latency", histogram.snapshot().toMap());
+            map.put("hedgeDelayMillis", hedgeDelayMillis(histogram));
+            upstreams.put(upstream, map);
+        });
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("upstreams", upstreams);
+        map.put("hedges", getHedges());
+        map.put("retries", getRetries());
+        map.put("budget", budget.getTokens());
+        return map;
+    }
+
+}
@@ -1,36 +1,89 @@
 package io.github.tkote.fn.eventrouter;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.logging.Logger;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fnproject.fn.api.InputEvent;
 import com.fnproject.fn.api.OutputEvent;
 
 public class HttpEventHelper {
+    private final static Logger logger = Logger.getLogger(HttpEventHelper.class.getName());
 
-    private static final ObjectMapper om = new ObjectMapper();
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
 
+    private static volatile ObjectMapper om = newObjectMapper();
+    // the response stream belongs to the FDK - do not close it
+    private static volatile ObjectWriter streamingWriter = om.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    /**
+     * Creates an ObjectMapper with the default settings of the router.
+     * If jackson-module-blackbird is on the classpath, it is registered so that
+     * (de)serializers use generated lambdas instead of reflection.
+     */
+    public static ObjectMapper newObjectMapper(){
+        final ObjectMapper mapper = new ObjectMapper();
+        try{
+            final Class<?> blackbird = Class.forName(BLACKBIRD_MODULE, true, HttpEventHelper.class.getClassLoader());
+            mapper.registerModule((Module)blackbird.getConstructor().newInstance());
+            logger.fine("Registered " + BLACKBIRD_MODULE);
+        }catch(ClassNotFoundException e){
+            // not on the classpath
+        }catch(Exception | LinkageError e){
+            logger.warning("Couldn't register " + BLACKBIRD_MODULE + " - " + e.getMessage());
+        }
+        return mapper;
+    }
+
+    // ObjectMapper shared by the router and this helper
+    public static ObjectMapper getObjectMapper(){
+        return om;
+    }
+
+    // replaces the shared ObjectMapper - EventRouter calls this at setup time if an ObjectMapperProvider exists
+    public static void setObjectMapper(ObjectMapper mapper){
+        Objects.requireNonNull(mapper);
+        om = mapper;
+        streamingWriter = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    // bodies declared larger than this are not preallocated
+    private static final int MAX_PREALLOCATE = 16 * 1024 * 1024;
+
+    /**
+     * Gets the request body as the given class.
+     * String/byte[]/ByteBuffer bodies are read into a buffer sized by Content-Length (if any),
+     * and a String is decoded by the charset of Content-Type (see getCharset),
+     * other classes (including JsonNode) are parsed by Jackson directly from the input stream.
+     */
     @SuppressWarnings("unchecked")
     public static <T> T getInputBody(InputEvent inputEvent, Class<T> clazz){
+        final int contentLength = getContentLength(inputEvent);
         return inputEvent.consumeBody(is -> {
             try{
-                byte[] input = null;
-                try(ByteArrayOutputStream out = new ByteArrayOutputStream()){
-                    byte[] buf = new byte[1024];
-                    while(true){
-                        int len = is.read(buf);
-                        if(-1 == len) break;
-                        else        out.write(buf, 0, len);;
-                    }
-                    input = out.toByteArray();
-                }
-
-                if(clazz.getName().equals(String.class.getName())){
-                    return (T)(new String(input, "UTF-8"));
-                }else if(clazz.getName().equals(byte[].class.getName())){
-                    return (T)input;
+                if(clazz == String.class){
+                    return (T)(new String(readBody(is, contentLength), getCharset(inputEvent)));
+                }else if(clazz == byte[].class){
+                    return (T)readBody(is, contentLength);
+                }else if(clazz == ByteBuffer.class){
+                    return (T)ByteBuffer.wrap(readBody(is, contentLength));
+                }else if(clazz == JsonNode.class){
+                    return (T)om.readTree(is);
                 }else{
-                    return (T)om.readValue(input, clazz);
+                    return (T)om.readValue(is, clazz);
                 }
             }catch(Exception e){
                 throw new RuntimeException("Couldn't get input data - " + e.getMessage(), e);
@@ -38,6 +91,66 @@ public class HttpEventHelper {
         });
     }
 
+    // parses the json request body by a reader prepared for the target type
+    public static <T> T getInputBody(InputEvent inputEvent, ObjectReader reader){
+        return inputEvent.consumeBody(is -> {
+            try{
+                return reader.readValue(is);
+            }catch(Exception e){
+                throw new RuntimeException("Couldn't get input data - " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // Content-Length of the request, -1 if unknown
+    public static int getContentLength(InputEvent inputEvent){
+        try{
+            final long length = inputEvent.getHeaders().get("Content-Length").map(Long::parseLong).orElse(-1L);
+            return (length < 0 || length > MAX_PREALLOCATE) ? -1 : (int)length;
+        }catch(NumberFormatException e){
+            return -1;
+        }
+    }
+
+    // charset of the request body by Content-Type, UTF-8 by default
+    public static Charset getCharset(InputEvent inputEvent){
+        final String contentType = inputEvent.getHeaders().get("Content-Type").orElse("");
+        for(String param : contentType.split(";")){
+            final String[] keyval = param.trim().split("=", 2);
+            if(2 == keyval.length && keyval[0].trim().equalsIgnoreCase("charset")){
+                try{
+                    return Charset.forName(keyval[1].trim().replace("\"", ""));
+                }catch(IllegalArgumentException e){
+                    break;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    // reads the whole body, into an exact-size buffer if the length is known
+    static byte[] readBody(InputStream is, int contentLength) throws IOException{
+        if(contentLength < 0){
+            return is.readAllBytes();
+        }
+        final byte[] buf = new byte[contentLength];
+        final int len = is.readNBytes(buf, 0, contentLength);
+        if(len < contentLength){
+            return Arrays.copyOf(buf, len);
+        }
+        final int next = is.read();
+        if(-1 == next){
+            return buf;
+        }
+        // longer than declared
+        try(ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength * 2)){
+            out.write(buf);
+            out.write(next);
+            is.transferTo(out);
+            return out.toByteArray();
+        }
+    }
+
     public static String getInputBodyAsString(InputEvent inputEvent){
         return getInputBody(inputEvent, String.class);
     }
@@ -53,11 +166,38 @@ public class HttpEventHelper {
 
     public static OutputEvent createJsonOutputEvent(Object obj){
         try{
-            String s = obj instanceof CharSequence ? obj.toString() : om.writeValueAsString(obj);
-            return OutputEvent.fromBytes(s.getBytes("UTF-8"), OutputEvent.Status.Success, "application/json");        
+            final byte[] bytes = obj instanceof CharSequence ? obj.toString().getBytes(StandardCharsets.UTF_8) : om.writeValueAsBytes(obj);
+            return OutputEvent.fromBytes(bytes, OutputEvent.Status.Success, "application/json");        
         }catch(Exception e){
             throw new RuntimeException("Couldn't create OutputEvent - " + e.getMessage(), e);
         }
     }
 
+    // serializes by a writer prepared for the result type
+    public static OutputEvent createJsonOutputEvent(Object obj, ObjectWriter writer){
+        try{
+            return OutputEvent.fromBytes(writer.writeValueAsBytes(obj), OutputEvent.Status.Success, "application/json");
+        }catch(Exception e){
+            throw new RuntimeException("Couldn't create OutputEvent - " + e.getMessage(), e);
+        }
+    }
+
+    public static OutputEvent createStreamingOutputEvent(StreamingOutput output, String contentType){
+        return new StreamingOutputEvent(output, contentType);
+    }
+
+    // onDiscard is closed if the output is never written (see StreamingOutputEvent)
+    public static OutputEvent createStreamingOutputEvent(StreamingOutput output, String contentType, Closeable onDiscard){
+        return new StreamingOutputEvent(output, contentType, OutputEvent.Status.Success, onDiscard);
+    }
+
+    /**
+     * Creates a json OutputEvent which serializes the object directly into the response stream.
+     * Serialization errors happen while the response is written, after the handler returned.
+     */
+    public static OutputEvent createJsonStreamingOutputEvent(Object obj){
+        final ObjectWriter writer = streamingWriter;
+        return new StreamingOutputEvent(out -> writer.writeValue(out, obj), "application/json");
+    }
+
 }
@@ -1,5 +1,7 @@
 package io.github.tkote.fn.eventrouter;
 
+import java.io.Closeable;
+
 import com.fnproject.fn.api.OutputEvent;
 
 public class HttpResponse {
@@ -23,6 +25,16 @@ public class HttpResponse {
     public static HttpResponse textResponse(String str){
         return new HttpResponse(HttpEventHelper.createTextOutputEvent(str), 200);
     }
+    public static HttpResponse streamingResponse(StreamingOutput output, String contentType, int status){
+        return new HttpResponse(HttpEventHelper.createStreamingOutputEvent(output, contentType), status);
+    }
+    public static HttpResponse streamingResponse(StreamingOutput output, String contentType){
+        return new HttpResponse(HttpEventHelper.createStreamingOutputEvent(output, contentType), 200);
+    }
+    // onDiscard is closed if the output is never written
+    public static HttpResponse streamingResponse(StreamingOutput output, String contentType, Closeable onDiscard){
+        return new HttpResponse(HttpEventHelper.createStreamingOutputEvent(output, contentType, onDiscard), 200);
+    }
     
     public OutputEvent getOutputEvent(){
         return outputEvent;
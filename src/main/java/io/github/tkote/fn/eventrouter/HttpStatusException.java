@@ -0,0 +1,26 @@
+package io.github.tkote.fn.eventrouter;
+
+/**
+ * Exception which carries the HTTP status code to respond.
+ * Thrown by the router (e.g. malformed parameters) or by handlers.
+ */
+public class HttpStatusException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public HttpStatusException(int status, String message){
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatusException(int status, String message, Throwable cause){
+        super(message, cause);
+        this.status = status;
+    }
+
+    public int getStatus(){
+        return status;
+    }
+
+}
@@ -0,0 +1,148 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import com.fnproject.fn.api.RuntimeContext;
+
+/**
+ * Creates the FnBeans and wires them, once at setup time.
+ * An injection point (@FnInject constructor parameter, field or method parameter) is resolved
+ * to the FnBean of exactly that class, otherwise to the only FnBean assignable to its type.
+ * Supplier&lt;T&gt; injects a provider of the FnBean which initializes a lazy bean on first get()
+ * and does not make the injected bean a dependency (so it can break cycles).
+ * RuntimeContext can be injected as well.
+ */
+public class Injector {
+    private final static Logger logger = Logger.getLogger(Injector.class.getName());
+
+    private final List<FnBeanDefinition> definitions;
+    private final RuntimeContext rctx;
+    private final Object[] instances;
+    private final List<List<Integer>> dependencies = new ArrayList<>(); // by definition index
+    private volatile List<BeanInitializer> initializers;
+
+    public Injector(List<FnBeanDefinition> definitions, RuntimeContext rctx){
+        this.definitions = definitions;
+        this.rctx = rctx;
+        this.instances = new Object[definitions.size()];
+        definitions.forEach(d -> dependencies.add(new ArrayList<>()));
+    }
+
+    // creates the instances - constructor dependencies first - and injects fields and methods
+    public List<Object> createBeans() throws Exception {
+        for(int n = 0 ; n < definitions.size() ; n++){
+            instantiate(n, new ArrayList<>());
+        }
+        for(int n = 0 ; n < definitions.size() ; n++){
+            final String className = definitions.get(n).getBeanClass().getName();
+            logger.fine("@FnInject: " + className);
+            definitions.get(n).inject(instances[n], new BeanResolver(n, null));
+            logger.fine("@FnInject complete: " + className);
+        }
+        return Arrays.asList(instances);
+    }
+
+    // indexes of the beans injected into the bean at the given index (providers excluded)
+    public List<Integer> getDependencies(int index){
+        return dependencies.get(index);
+    }
+
+    // initializers by definition index, used by providers
+    void setInitializers(List<BeanInitializer> initializers){
+        this.initializers = initializers;
+    }
+
+    private void instantiate(int n, List<Integer> creating) throws Exception {
+        if(Objects.nonNull(instances[n])) return;
+        if(creating.contains(n)){
+            final String cycle = creating.stream().map(i -> definitions.get(i).getBeanClass().getName()).collect(Collectors.joining(" -> "));
+            throw new IllegalStateException("Circular constructor injection: " + cycle + " -> " + definitions.get(n).getBeanClass().getName());
+        }
+        creating.add(n);
+        instances[n] = definitions.get(n).create(new BeanResolver(n, creating));
+        creating.remove(Integer.valueOf(n));
+    }
+
+    /**
+     * Resolver for the bean at index n.
+     * While it is being created (creating is not null), the beans it resolves are created first.
+     */
+    private class BeanResolver implements FnBeanDefinition.Resolver {
+        private final int n;
+        private final List<Integer> creating;
+
+        private BeanResolver(int n, List<Integer> creating){
+            this.n = n;
+            this.creating = creating;
+        }
+
+        @Override
+        public <T> T resolve(Class<T> type){
+            if(type.equals(RuntimeContext.class)){
+                return type.cast(rctx);
+            }
+            final int target = indexOrThrow(type);
+            if(Objects.nonNull(creating)){
+                try{
+                    instantiate(target, creating);
+                }catch(RuntimeException e){
+                    throw e;
+                }catch(Exception e){
+                    throw new RuntimeException("Couldn't create FnBean - " + e.getMessage(), e);
+                }
+            }
+            if(!dependencies.get(n).contains(target)) dependencies.get(n).add(target);
+            return type.cast(instances[target]);
+        }
+
+        @Override
+        public <T> Supplier<T> provider(Class<T> type){
+            final int target = indexOrThrow(type);
+            return () -> type.cast(provide(target));
+        }
+    }
+
+    private Object provide(int target){
+        final List<BeanInitializer> inits = initializers;
+        if(Objects.nonNull(inits) && !inits.get(target).isInitialized()){
+            try{
+                inits.get(target).initialize();
+            }catch(RuntimeException e){
+                throw e;
+            }catch(Exception e){
+                throw new RuntimeException("Couldn't initialize FnBean - " + e.getMessage(), e);
+            }
+        }
+        return instances[target];
+    }
+
+    private int indexOrThrow(Class<?> type){
+        final int index = indexOf(type);
+        if(index < 0){
+            throw new IllegalArgumentException("No such FnBean exists: " + type.getName());
+        }
+        return index;
+    }
+
+    // exact class first, then the only assignable one; -1 if none
+    private int indexOf(Class<?> type){
+        final List<Integer> assignable = new ArrayList<>();
+        for(int i = 0 ; i < definitions.size() ; i++){
+            final Class<?> beanClass = definitions.get(i).getBeanClass();
+            if(beanClass.equals(type)) return i;
+            if(type.isAssignableFrom(beanClass)) assignable.add(i);
+        }
+        if(assignable.size() > 1){
+            final String names = assignable.stream().map(i -> definitions.get(i).getBeanClass().getName()).collect(Collectors.joining(","));
+            throw new IllegalArgumentException("Ambiguous FnBean for " + type.getName() + ": " + names);
+        }
+        return assignable.isEmpty() ? -1 : assignable.get(0);
+    }
+
+}
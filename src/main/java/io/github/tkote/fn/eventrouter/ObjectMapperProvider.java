@@ -0,0 +1,13 @@
+package io.github.tkote.fn.eventrouter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Implement this interface in a @FnBean to replace the ObjectMapper used by the router.
+ * It is called once at setup time, after @FnInject and @FnInit,
+ * and the mapper is shared by the handlers and HttpEventHelper.
+ * HttpEventHelper.newObjectMapper() is a good starting point to configure.
+ */
+public interface ObjectMapperProvider {
+    ObjectMapper getObjectMapper();
+}
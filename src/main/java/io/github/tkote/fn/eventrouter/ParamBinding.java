@@ -0,0 +1,101 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.lang.reflect.Parameter;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Function;
+
+import io.github.tkote.fn.eventrouter.annotation.FnHeaderParam;
+import io.github.tkote.fn.eventrouter.annotation.FnPathParam;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+
+/**
+ * Binding of a handler parameter annotated with @FnPathParam, @FnQueryParam or @FnHeaderParam.
+ * Built once at setup time together with its converter.
+ */
+public class ParamBinding implements ArgumentResolver {
+
+    public enum Source { PATH, QUERY, HEADER }
+
+    private final Source source;
+    private final String name;
+    private final String defaultValue; // null if none
+    private final Class<?> type;
+    private final Function<String, ?> converter;
+
+    private ParamBinding(Source source, String name, String defaultValue, Class<?> type){
+        this.source = source;
+        this.name = name;
+        this.defaultValue = (Objects.isNull(defaultValue) || defaultValue.isEmpty()) ? null : defaultValue;
+        this.type = type;
+        this.converter = ParamConverters.forType(type);
+    }
+
+    // returns null if the parameter has no binding annotation
+    public static ParamBinding of(Parameter parameter, PathTemplate template){
+        final FnPathParam pathParam = parameter.getAnnotation(FnPathParam.class);
+        if(Objects.nonNull(pathParam)){
+            if(!template.getVariables().contains(pathParam.value())){
+                throw new IllegalArgumentException(String.format("No such path variable: %s in %s", pathParam.value(), template.getPath()));
+            }
+            return new ParamBinding(Source.PATH, pathParam.value(), null, parameter.getType());
+        }
+        final FnQueryParam queryParam = parameter.getAnnotation(FnQueryParam.class);
+        if(Objects.nonNull(queryParam)){
+            return new ParamBinding(Source.QUERY, queryParam.value(), queryParam.defaultValue(), parameter.getType());
+        }
+        final FnHeaderParam headerParam = parameter.getAnnotation(FnHeaderParam.class);
+        if(Objects.nonNull(headerParam)){
+            return new ParamBinding(Source.HEADER, headerParam.value(), headerParam.defaultValue(), parameter.getType());
+        }
+        return null;
+    }
+
+    @Override
+    public Object resolve(RequestContext ctx){
+        final HTTPGatewayContext hctx = ctx.getHttpGatewayContext();
+        String value = null;
+        switch(source){
+            case PATH:
+                value = decodePath(ctx.getPathParams().get(name));
+                break;
+            case QUERY:
+                value = hctx.getQueryParameters().get(name).orElse(null);
+                break;
+            case HEADER:
+                value = hctx.getHeaders().get(name).orElse(null);
+                break;
+        }
+        if(Objects.isNull(value)){
+            value = defaultValue;
+        }
+        if(Objects.isNull(value)){
+            if(type.isPrimitive()){
+                throw new HttpStatusException(400, String.format("Missing %s parameter: %s", source.name().toLowerCase(), name));
+            }
+            return null;
+        }
+        try{
+            return converter.apply(value);
+        }catch(IllegalArgumentException e){
+            throw new HttpStatusException(400, String.format("Invalid %s parameter: %s=%s", source.name().toLowerCase(), name, value), e);
+        }
+    }
+
+    public Source getSource(){
+        return source;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    // '+' is not a space in a path segment
+    private static String decodePath(String s){
+        if(Objects.isNull(s) || s.indexOf('%') < 0) return s;
+        return URLDecoder.decode(s.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+}
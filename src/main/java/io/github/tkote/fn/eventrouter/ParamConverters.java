@@ -0,0 +1,92 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * String to parameter type converters for @FnPathParam, @FnQueryParam and @FnHeaderParam.
+ * Converters are looked up once per handler parameter at setup time.
+ * Besides the built-in types, any type with a static valueOf(String)/fromString(String) method
+ * or a public constructor taking a String is supported (same rule as JAX-RS).
+ */
+public class ParamConverters {
+
+    private static final Map<Class<?>, Function<String, ?>> converters = new HashMap<>();
+
+    static{
+        converters.put(String.class, s -> s);
+        converters.put(CharSequence.class, s -> s);
+        converters.put(Object.class, s -> s);
+        converters.put(int.class, Integer::valueOf);
+        converters.put(Integer.class, Integer::valueOf);
+        converters.put(long.class, Long::valueOf);
+        converters.put(Long.class, Long::valueOf);
+        converters.put(short.class, Short::valueOf);
+        converters.put(Short.class, Short::valueOf);
+        converters.put(byte.class, Byte::valueOf);
+        converters.put(Byte.class, Byte::valueOf);
+        converters.put(double.class, Double::valueOf);
+        converters.put(Double.class, Double::valueOf);
+        converters.put(float.class, Float::valueOf);
+        converters.put(Float.class, Float::valueOf);
+        converters.put(boolean.class, Boolean::valueOf);
+        converters.put(Boolean.class, Boolean::valueOf);
+        converters.put(char.class, ParamConverters::toChar);
+        converters.put(Character.class, ParamConverters::toChar);
+        converters.put(BigDecimal.class, BigDecimal::new);
+        converters.put(BigInteger.class, BigInteger::new);
+        converters.put(UUID.class, UUID::fromString);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Function<String, ?> forType(Class<?> type){
+        final Function<String, ?> converter = converters.get(type);
+        if(Objects.nonNull(converter)){
+            return converter;
+        }
+        if(type.isEnum()){
+            return s -> Enum.valueOf((Class<? extends Enum>)type, s);
+        }
+        for(String name : new String[]{"valueOf", "fromString"}){
+            try{
+                final Method m = type.getMethod(name, String.class);
+                if(Modifier.isStatic(m.getModifiers()) && type.isAssignableFrom(m.getReturnType())){
+                    return s -> {
+                        try{
+                            return m.invoke(null, s);
+                        }catch(Exception e){
+                            throw new IllegalArgumentException(e.getMessage(), e);
+                        }
+                    };
+                }
+            }catch(NoSuchMethodException e){}
+        }
+        try{
+            final Constructor<?> c = type.getConstructor(String.class);
+            return s -> {
+                try{
+                    return c.newInstance(s);
+                }catch(Exception e){
+                    throw new IllegalArgumentException(e.getMessage(), e);
+                }
+            };
+        }catch(NoSuchMethodException e){}
+        throw new IllegalArgumentException("Parameter type not supported: " + type.getName());
+    }
+
+    private static Character toChar(String s){
+        if(1 != s.length()){
+            throw new IllegalArgumentException("Not a single character: " + s);
+        }
+        return s.charAt(0);
+    }
+
+}
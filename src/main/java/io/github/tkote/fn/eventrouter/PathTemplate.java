@@ -0,0 +1,66 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Path of @FnHttpEvent, compiled once.
+ * In addition to plain regular expressions, JAX-RS style template variables are supported:
+ * "{name}" matches one path segment, "{name:regex}" matches the given regex.
+ * Variables are compiled into named groups so that their values are extracted by the same match.
+ */
+public class PathTemplate {
+
+    // variable name must be a valid named-group name - starts with a letter, followed by letters/digits
+    private static final Pattern VARIABLE = Pattern.compile("\\{([A-Za-z][A-Za-z0-9]*)\\s*(?::\\s*([^{}]*(?:\\{[^{}]*\\}[^{}]*)*))?\\}");
+
+    private final String path;
+    private final Pattern pattern;
+    private final List<String> variables;
+
+    private PathTemplate(String path, Pattern pattern, List<String> variables){
+        this.path = path;
+        this.pattern = pattern;
+        this.variables = variables;
+    }
+
+    public static PathTemplate compile(String path){
+        final List<String> variables = new ArrayList<>();
+        final StringBuilder regex = new StringBuilder();
+        final Matcher m = VARIABLE.matcher(path);
+        int last = 0;
+        while(m.find()){
+            final String name = m.group(1);
+            final String re = m.group(2);
+            if(variables.contains(name)){
+                throw new IllegalArgumentException(String.format("Duplicated path variable: %s in %s", name, path));
+            }
+            variables.add(name);
+            regex.append(path, last, m.start());
+            regex.append("(?<").append(name).append(">").append(re == null ? "[^/]+" : re.trim()).append(")");
+            last = m.end();
+        }
+        regex.append(path.substring(last));
+        return new PathTemplate(path, Pattern.compile(regex.toString()), Collections.unmodifiableList(variables));
+    }
+
+    public String getPath(){
+        return path;
+    }
+
+    public Pattern getPattern(){
+        return pattern;
+    }
+
+    public List<String> getVariables(){
+        return variables;
+    }
+
+    public boolean hasVariables(){
+        return !variables.isEmpty();
+    }
+
+}
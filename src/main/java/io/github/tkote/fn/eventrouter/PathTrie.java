@@ -0,0 +1,98 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Radix (compressed prefix) tree.
+ * Used by RouteTable to find all keys which are prefixes of a request path
+ * in a single walk, O(path length) regardless of the number of keys.
+ */
+public class PathTrie<V> {
+
+    private static class Node<V>{
+        private String label;
+        private final Map<Character, Node<V>> children = new HashMap<>();
+        private final List<V> values = new ArrayList<>(1);
+        private Node(String label){
+            this.label = label;
+        }
+    }
+
+    private final Node<V> root = new Node<>("");
+    private int size = 0;
+
+    public void put(String key, V value){
+        Objects.requireNonNull(key);
+        Node<V> node = root;
+        int i = 0;
+        while(true){
+            if(i == key.length()){
+                node.values.add(value);
+                size++;
+                return;
+            }
+            final Node<V> child = node.children.get(key.charAt(i));
+            if(Objects.isNull(child)){
+                final Node<V> leaf = new Node<>(key.substring(i));
+                leaf.values.add(value);
+                node.children.put(leaf.label.charAt(0), leaf);
+                size++;
+                return;
+            }
+            final int common = commonPrefixLength(child.label, key, i);
+            if(common < child.label.length()){
+                // split the edge
+                final Node<V> split = new Node<>(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(split.label.charAt(0), split);
+                node = split;
+            }else{
+                node = child;
+            }
+            i += common;
+        }
+    }
+
+    // collect values of all keys which are prefixes of s
+    public void collectPrefixesOf(CharSequence s, List<V> out){
+        Node<V> node = root;
+        out.addAll(node.values);
+        int i = 0;
+        while(i < s.length()){
+            final Node<V> child = node.children.get(s.charAt(i));
+            if(Objects.isNull(child) || !startsWith(s, i, child.label)) break;
+            i += child.label.length();
+            out.addAll(child.values);
+            node = child;
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return 0 == size;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset){
+        final int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while(n < max && label.charAt(n) == key.charAt(offset + n)) n++;
+        return n;
+    }
+
+    private static boolean startsWith(CharSequence s, int offset, String label){
+        if(s.length() - offset < label.length()) return false;
+        for(int n = 0 ; n < label.length() ; n++){
+            if(s.charAt(offset + n) != label.charAt(n)) return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,178 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import com.fnproject.fn.api.RuntimeContext;
+
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnInit;
+import io.github.tkote.fn.eventrouter.annotation.FnInject;
+import io.github.tkote.fn.eventrouter.annotation.FnWarmup;
+
+/**
+ * FnBeanDefinition which discovers annotated members by reflection.
+ * Used when no generated definition is available.
+ * The static helpers are also used by generated definitions for private members.
+ */
+public class ReflectiveBeanDefinition implements FnBeanDefinition {
+    private final static Logger logger = Logger.getLogger(ReflectiveBeanDefinition.class.getName());
+
+    private final Class<?> clazz;
+
+    public ReflectiveBeanDefinition(Class<?> clazz){
+        this.clazz = clazz;
+    }
+
+    @Override
+    public Class<?> getBeanClass(){
+        return clazz;
+    }
+
+    @Override
+    public Object create(Resolver resolver) throws Exception{
+        for(Constructor<?> constructor : clazz.getConstructors()){
+            if(Objects.nonNull(constructor.getAnnotation(FnInject.class))){
+                logger.fine("@FnInject: " + constructor);
+                final Object[] args = resolveAll(resolver, constructor.getGenericParameterTypes());
+                return invoke(() -> constructor.newInstance(args));
+            }
+        }
+        final Constructor<?> constructor = clazz.getConstructor();
+        return invoke(() -> constructor.newInstance());
+    }
+
+    @Override
+    public void inject(Object bean, Resolver resolver) throws Exception{
+        for(Field field : clazz.getDeclaredFields()){
+            if(Objects.nonNull(field.getAnnotation(FnInject.class))){
+                logger.fine("@FnInject: " + clazz.getName() + "#" + field.getName());
+                field.setAccessible(true);
+                field.set(bean, resolve(resolver, field.getGenericType()));
+            }
+        }
+        for(Method method : clazz.getDeclaredMethods()){
+            if(Objects.nonNull(method.getAnnotation(FnInject.class))){
+                logger.fine("@FnInject: " + clazz.getName() + "#" + method.getName());
+                final Object[] args = resolveAll(resolver, method.getGenericParameterTypes());
+                method.setAccessible(true);
+                invoke(() -> method.invoke(bean, args));
+            }
+        }
+    }
+
+    @Override
+    public void init(Object bean, RuntimeContext rctx) throws Exception{
+        for(Method method : clazz.getDeclaredMethods()){
+            if(Objects.nonNull(method.getAnnotation(FnInit.class))){
+                logger.fine("@FnInit: " + clazz.getName() + "#" + method.getName());
+                final Object[] args = runtimeContextArgs(method, rctx, "@FnInit");
+                method.setAccessible(true);
+                invoke(() -> method.invoke(bean, args));
+            }
+        }
+    }
+
+    @Override
+    public void warmUp(Object bean, RuntimeContext rctx, BiConsumer<String, Exception> onFailure){
+        for(Method method : clazz.getDeclaredMethods()){
+            if(Objects.nonNull(method.getAnnotation(FnWarmup.class))){
+                logger.fine("@FnWarmup: " + clazz.getName() + "#" + method.getName());
+                try{
+                    final Object[] args = runtimeContextArgs(method, rctx, "@FnWarmup");
+                    method.setAccessible(true);
+                    invoke(() -> method.invoke(bean, args));
+                }catch(Exception e){
+                    onFailure.accept(method.getName(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Method> getHandlerMethods(){
+        final List<Method> methods = new ArrayList<>();
+        for(Method method : clazz.getMethods()){
+            if(Objects.nonNull(method.getAnnotation(FnHttpEvent.class))){
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    // sets a field which generated code cannot access
+    public static void setField(Object bean, Class<?> clazz, String name, Object value) throws Exception {
+        final Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(bean, value);
+    }
+
+    // calls a method which generated code cannot access
+    public static Object invokeMethod(Object bean, Class<?> clazz, String name, Class<?>[] types, Object... args) throws Exception {
+        final Method method = clazz.getDeclaredMethod(name, types);
+        method.setAccessible(true);
+        return invoke(() -> method.invoke(bean, args));
+    }
+
+    private Object[] resolveAll(Resolver resolver, Type[] types){
+        final Object[] args = new Object[types.length];
+        for(int i = 0 ; i < types.length ; i++){
+            args[i] = resolve(resolver, types[i]);
+        }
+        return args;
+    }
+
+    private Object resolve(Resolver resolver, Type type){
+        if(type instanceof ParameterizedType && ((ParameterizedType)type).getRawType().equals(Supplier.class)){
+            return resolver.provider(rawType(((ParameterizedType)type).getActualTypeArguments()[0]));
+        }
+        if(type.equals(Supplier.class)){
+            throw new IllegalArgumentException("Type argument of Supplier is required: " + clazz.getName());
+        }
+        return resolver.resolve(rawType(type));
+    }
+
+    private static Class<?> rawType(Type type){
+        if(type instanceof Class) return (Class<?>)type;
+        if(type instanceof ParameterizedType) return (Class<?>)((ParameterizedType)type).getRawType();
+        return Object.class;
+    }
+
+    private static Object[] runtimeContextArgs(Method method, RuntimeContext rctx, String annotation){
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final Object[] args = new Object[parameterTypes.length];
+        for(int i = 0 ; i < parameterTypes.length ; i++){
+            if(parameterTypes[i].equals(RuntimeContext.class)){
+                args[i] = rctx;
+            }else{
+                throw new IllegalArgumentException("Parameter type not supported for " + annotation + ": " + parameterTypes[i]);
+            }
+        }
+        return args;
+    }
+
+    private interface Call{
+        Object call() throws Exception;
+    }
+
+    // unwraps exceptions thrown by the constructor/method
+    private static Object invoke(Call call) throws Exception {
+        try{
+            return call.call();
+        }catch(InvocationTargetException e){
+            if(e.getCause() instanceof Exception) throw (Exception)e.getCause();
+            throw e;
+        }
+    }
+
+}
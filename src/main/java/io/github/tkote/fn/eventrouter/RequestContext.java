@@ -0,0 +1,75 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+import com.fnproject.fn.api.tracing.TracingContext;
+
+/**
+ * Per-request state passed to argument resolvers and result converters.
+ */
+public class RequestContext {
+    private final InputEvent inputEvent;
+    private final HTTPGatewayContext hctx;
+    private final TracingContext tctx;
+    private final Map<String, String> pathParams;
+    private final Deadline deadline;
+    private InputStream bodyStream; // set while the handler consumes the body as a stream
+    private FanOut fanOut; // created on demand
+
+    public RequestContext(InputEvent inputEvent, HTTPGatewayContext hctx, TracingContext tctx, Map<String, String> pathParams){
+        this(inputEvent, hctx, tctx, pathParams, Deadline.of(inputEvent, hctx));
+    }
+
+    public RequestContext(InputEvent inputEvent, HTTPGatewayContext hctx, TracingContext tctx, Map<String, String> pathParams, Deadline deadline){
+        this.inputEvent = inputEvent;
+        this.hctx = hctx;
+        this.tctx = tctx;
+        this.pathParams = pathParams;
+        this.deadline = deadline;
+    }
+
+    public InputEvent getInputEvent(){
+        return inputEvent;
+    }
+
+    public HTTPGatewayContext getHttpGatewayContext(){
+        return hctx;
+    }
+
+    public TracingContext getTracingContext(){
+        return tctx;
+    }
+
+    public Deadline getDeadline(){
+        return deadline;
+    }
+
+    public Map<String, String> getPathParams(){
+        return pathParams;
+    }
+
+    public InputStream getBodyStream(){
+        return bodyStream;
+    }
+
+    void setBodyStream(InputStream bodyStream){
+        this.bodyStream = bodyStream;
+    }
+
+    public FanOut getFanOut(){
+        if(Objects.isNull(fanOut)){
+            fanOut = FanOut.of(this);
+        }
+        return fanOut;
+    }
+
+    // cancels the calls the handler left running
+    void closeFanOut(){
+        if(Objects.nonNull(fanOut)) fanOut.close();
+    }
+
+}
@@ -0,0 +1,12 @@
+package io.github.tkote.fn.eventrouter;
+
+import com.fnproject.fn.api.OutputEvent;
+
+/**
+ * Converts a non-null handler return value into an OutputEvent.
+ * Converters are built once per handler at setup time.
+ */
+@FunctionalInterface
+public interface ResultConverter {
+    OutputEvent convert(Object result, RequestContext ctx);
+}
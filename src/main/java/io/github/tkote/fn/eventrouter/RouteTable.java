@@ -0,0 +1,210 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+
+/**
+ * Route table built once at setup time.
+ * Handlers are bucketed by HTTP method (upper case) plus an "ANY" bucket.
+ * Within a bucket, paths which are effectively literals ("/hello"), prefixes ("/api/.*")
+ * or suffixes (".*&#47;hello") are resolved by hash/trie lookup in O(path length),
+ * and only genuinely dynamic patterns are evaluated as precompiled regular expressions.
+ * The table is filled by a single thread and then frozen; once frozen it is never modified,
+ * so find() can be called from any number of threads (after a safe publication).
+ */
+public class RouteTable {
+    private final static Logger logger = Logger.getLogger(RouteTable.class.getName());
+
+    public static final String ANY = "ANY";
+
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    public enum Kind { EXACT, PREFIX, SUFFIX, REGEX }
+
+    // result of the path pattern analysis
+    public static class PathPattern{
+        public final Kind kind;
+        public final String literal; // null if kind == REGEX
+        public PathPattern(Kind kind, String literal){
+            this.kind = kind;
+            this.literal = literal;
+        }
+        public String toString(){
+            return kind + (Objects.isNull(literal) ? "" : "(" + literal + ")");
+        }
+    }
+
+    // routes of one method bucket
+    private static class Routes{
+        private final Map<String, List<EventRouter.Handler>> exact = new HashMap<>();
+        private final PathTrie<EventRouter.Handler> prefixes = new PathTrie<>();
+        private final PathTrie<EventRouter.Handler> suffixes = new PathTrie<>(); // keyed by reversed literal
+        private final List<EventRouter.Handler> regexes = new ArrayList<>();
+        private final List<EventRouter.Handler> all = new ArrayList<>();
+
+        private void add(EventRouter.Handler handler, PathPattern pp){
+            switch(pp.kind){
+                case EXACT:
+                    exact.computeIfAbsent(pp.literal, k -> new ArrayList<>(1)).add(handler);
+                    break;
+                case PREFIX:
+                    prefixes.put(pp.literal, handler);
+                    break;
+                case SUFFIX:
+                    suffixes.put(new StringBuilder(pp.literal).reverse().toString(), handler);
+                    break;
+                default:
+                    regexes.add(handler);
+            }
+            all.add(handler);
+        }
+
+        private void collect(String path, List<EventRouter.Handler> candidates, Map<String, String> pathParams){
+            final List<EventRouter.Handler> e = exact.get(path);
+            if(Objects.nonNull(e)) candidates.addAll(e);
+            if(!prefixes.isEmpty()) prefixes.collectPrefixesOf(path, candidates);
+            if(!suffixes.isEmpty()) suffixes.collectPrefixesOf(new Reversed(path), candidates);
+            for(EventRouter.Handler handler : regexes){
+                final Matcher m = handler.pattern.matcher(path);
+                if(m.matches()){
+                    candidates.add(handler);
+                    if(Objects.nonNull(pathParams)){
+                        for(String name : handler.template.getVariables()){
+                            pathParams.put(name, m.group(name));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // reversed view of a string, to look up suffixes without copying the path
+    private static class Reversed implements CharSequence{
+        private final String s;
+        private Reversed(String s){
+            this.s = s;
+        }
+        public int length(){
+            return s.length();
+        }
+        public char charAt(int index){
+            return s.charAt(s.length() - 1 - index);
+        }
+        public CharSequence subSequence(int start, int end){
+            return new StringBuilder(toString()).substring(start, end);
+        }
+        public String toString(){
+            return new StringBuilder(s).reverse().toString();
+        }
+    }
+
+    private final Map<String, Routes> buckets = new HashMap<>();
+    private boolean frozen = false;
+
+    public void add(EventRouter.Handler handler){
+        if(frozen){
+            throw new IllegalStateException("Route table is frozen: " + handler);
+        }
+        final String m = handler.annotation.method().toUpperCase(Locale.ROOT);
+        final PathPattern pp = analyze(handler.annotation.path());
+        buckets.computeIfAbsent(m, k -> new Routes()).add(handler, pp);
+        if(logger.isLoggable(Level.FINE)){
+            logger.fine("Route added: method=" + m + ", path=" + handler.annotation.path() + ", type=" + pp + " >> " + handler);
+        }
+    }
+
+    // no more routes can be added after this
+    public RouteTable freeze(){
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    public List<EventRouter.Handler> find(String method, String path){
+        return find(method, path, null);
+    }
+
+    // path variables of template routes are put into pathParams (if not null) by the same match
+    public List<EventRouter.Handler> find(String method, String path, Map<String, String> pathParams){
+        final List<EventRouter.Handler> candidates = new ArrayList<>(1);
+        final String m = Objects.isNull(method) ? "" : method.toUpperCase(Locale.ROOT);
+        if(!m.equals(ANY)){
+            final Routes routes = buckets.get(m);
+            if(Objects.nonNull(routes)) routes.collect(path, candidates, pathParams);
+        }
+        final Routes any = buckets.get(ANY);
+        if(Objects.nonNull(any)) any.collect(path, candidates, pathParams);
+        return candidates;
+    }
+
+    public List<EventRouter.Handler> getHandlers(){
+        final List<EventRouter.Handler> list = new ArrayList<>();
+        buckets.values().forEach(r -> list.addAll(r.all));
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Classifies a path regex.
+     * Templates with "{name}" variables always fall into REGEX.
+     * "literal" -> EXACT, "literal.*" -> PREFIX, ".*literal" -> SUFFIX, anything else -> REGEX.
+     * Escaped meta characters (e.g. "\.") are treated as literals.
+     * Request paths never contain line terminators, so ".*" is equivalent to "any string" here.
+     */
+    public static PathPattern analyze(String regex){
+        String p = regex;
+        if(p.startsWith("^")) p = p.substring(1);
+        if(p.endsWith("$") && !p.endsWith("\\$")) p = p.substring(0, p.length() - 1);
+
+        final StringBuilder literal = new StringBuilder();
+        boolean leadingAny = false, trailingAny = false;
+        final int n = p.length();
+        int i = 0;
+        while(i < n){
+            final char c = p.charAt(i);
+            if(c == '\\'){
+                if(i + 1 < n && !Character.isLetterOrDigit(p.charAt(i + 1))){
+                    literal.append(p.charAt(i + 1));
+                    i += 2;
+                    continue;
+                }
+                return new PathPattern(Kind.REGEX, null);
+            }else if(c == '.' && i + 1 < n && p.charAt(i + 1) == '*'){
+                if(i == 0){
+                    leadingAny = true;
+                }else if(i + 2 == n){
+                    trailingAny = true;
+                }else{
+                    return new PathPattern(Kind.REGEX, null);
+                }
+                i += 2;
+                continue;
+            }else if(REGEX_META.indexOf(c) >= 0){
+                return new PathPattern(Kind.REGEX, null);
+            }
+            literal.append(c);
+            i++;
+        }
+
+        if(leadingAny && trailingAny){
+            return new PathPattern(Kind.REGEX, null);
+        }else if(leadingAny){
+            return new PathPattern(Kind.SUFFIX, literal.toString());
+        }else if(trailingAny){
+            return new PathPattern(Kind.PREFIX, literal.toString());
+        }else{
+            return new PathPattern(Kind.EXACT, literal.toString());
+        }
+    }
+
+}
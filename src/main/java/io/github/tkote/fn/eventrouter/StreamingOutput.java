@@ -0,0 +1,15 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body written directly to the response stream.
+ * Return it from a @FnHttpEvent method (Content-Type by outputType) or wrap it with
+ * HttpResponse.streamingResponse() to set Content-Type and status.
+ * The callback is invoked after the handler returns, when the FDK writes the response.
+ */
+@FunctionalInterface
+public interface StreamingOutput {
+    void write(OutputStream out) throws IOException;
+}
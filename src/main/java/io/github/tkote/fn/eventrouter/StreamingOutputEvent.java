@@ -0,0 +1,100 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.OutputEvent;
+
+/**
+ * OutputEvent which writes its body through a StreamingOutput instead of holding it in memory.
+ * The resources the output will close (e.g. an open ResultSet) can be given as onDiscard -
+ * they are closed if the event is closed or garbage collected without having been written.
+ */
+public class StreamingOutputEvent implements OutputEvent, Closeable {
+    private final static Logger logger = Logger.getLogger(StreamingOutputEvent.class.getName());
+
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private final StreamingOutput output;
+    private final String contentType;
+    private final Status status;
+    private final Discard discard;
+
+    public StreamingOutputEvent(StreamingOutput output, String contentType){
+        this(output, contentType, Status.Success);
+    }
+
+    public StreamingOutputEvent(StreamingOutput output, String contentType, Status status){
+        this(output, contentType, status, null);
+    }
+
+    // onDiscard is closed unless the output is written - once writing starts, the output owns the resources
+    public StreamingOutputEvent(StreamingOutput output, String contentType, Status status, Closeable onDiscard){
+        this.output = Objects.requireNonNull(output);
+        this.contentType = contentType;
+        this.status = status;
+        this.discard = Objects.isNull(onDiscard) ? null : new Discard(onDiscard);
+        if(Objects.nonNull(discard)) cleaner.register(this, discard);
+    }
+
+    // must not refer to the event, or it never becomes unreachable
+    private static class Discard implements Runnable{
+        private final Closeable resource;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private Discard(Closeable resource){
+            this.resource = resource;
+        }
+        // false if written or closed already
+        private boolean disarm(){
+            return done.compareAndSet(false, true);
+        }
+        private void close() throws IOException{
+            if(disarm()) resource.close();
+        }
+        @Override
+        public void run(){
+            if(done.get()) return;
+            logger.warning("StreamingOutputEvent was not written - released");
+            try{
+                close();
+            }catch(IOException e){
+                logger.fine("Couldn't close - " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Status getStatus(){
+        return status;
+    }
+
+    @Override
+    public Optional<String> getContentType(){
+        return Optional.ofNullable(contentType);
+    }
+
+    @Override
+    public Headers getHeaders(){
+        return Headers.emptyHeaders();
+    }
+
+    @Override
+    public void writeToOutput(OutputStream out) throws IOException{
+        if(Objects.nonNull(discard)) discard.disarm();
+        output.write(out);
+    }
+
+    // discards the event without writing it
+    @Override
+    public void close() throws IOException{
+        if(Objects.nonNull(discard)) discard.close();
+    }
+
+}
@@ -11,4 +11,5 @@ import java.lang.annotation.Target;
 @Target({ElementType.MODULE, ElementType.TYPE})
 public @interface FnBean {
     String value() default ""; // default value must be constant, not null
+    boolean lazy() default false; // @FnInit is deferred until the bean is first used
 }
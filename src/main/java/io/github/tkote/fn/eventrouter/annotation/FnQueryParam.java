@@ -0,0 +1,15 @@
+package io.github.tkote.fn.eventrouter.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.PARAMETER})
+public @interface FnQueryParam {
+    String value(); // name of the query parameter
+    String defaultValue() default ""; // used when absent, empty means no default
+}
@@ -0,0 +1,36 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+/**
+ * One compact line per request, written asynchronously to stderr (same as ConsoleHandler):
+ * "ACCESS method path status elapsed(ms) handler callId"
+ */
+public class AccessLog {
+
+    private final AsyncLineWriter writer;
+
+    public AccessLog(){
+        this(new AsyncLineWriter(System.err, 8192, "fn-event-router-access-log"));
+    }
+
+    public AccessLog(AsyncLineWriter writer){
+        this.writer = writer;
+    }
+
+    public void log(String method, String path, int status, long elapsedNanos, Object handler, String callId){
+        final StringBuilder sb = new StringBuilder(96 + path.length());
+        sb.append("ACCESS ").append(method).append(' ').append(path).append(' ').append(status).append(' ');
+        final long micros = elapsedNanos / 1000;
+        sb.append(micros / 1000).append('.');
+        final long frac = micros % 1000;
+        if(frac < 100) sb.append('0');
+        if(frac < 10) sb.append('0');
+        sb.append(frac).append("ms ");
+        sb.append(null == handler ? "-" : handler).append(' ').append(null == callId ? "-" : callId);
+        writer.write(sb.toString());
+    }
+
+    public AsyncLineWriter getWriter(){
+        return writer;
+    }
+
+}
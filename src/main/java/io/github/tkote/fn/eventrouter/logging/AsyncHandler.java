@@ -0,0 +1,154 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.logging.ErrorManager;
+import java.util.logging.Filter;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * Console (stderr) handler which formats and writes records on a background thread.
+ * Records are put into a bounded buffer and written in batches, each batch as one write,
+ * so they are not interleaved with the access log (AsyncLineWriter) on the shared stream.
+ * Configured by the LogManager properties (prefix "io.github.tkote.fn.eventrouter.logging.AsyncHandler."):
+ *   level      - default ALL
+ *   formatter  - default io.github.tkote.fn.eventrouter.logging.SimpleFormatter
+ *   filter     - default none
+ *   encoding   - default UTF-8
+ *   capacity   - max buffered records, default 8192
+ *   policy     - DROP (discard when full, default) or BLOCK (wait for space)
+ *   batch      - max records per write, default 256
+ * Caller information (%2$s of SimpleFormatter) is not inferred; the logger name is used instead.
+ * The name of the logging thread is kept with the record for JsonFormatter.
+ */
+public class AsyncHandler extends Handler {
+
+    // a record and the name of the thread which logged it
+    private static class Entry{
+        private final LogRecord record;
+        private final String thread;
+        private Entry(LogRecord record, String thread){
+            this.record = record;
+            this.thread = thread;
+        }
+    }
+
+    private final AsyncWorker<Entry> worker;
+    private final OutputStream out;
+    private final Charset charset;
+
+    public AsyncHandler(){
+        final String prefix = getClass().getName();
+        setLevel(parseLevel(property(prefix + ".level"), Level.ALL));
+        setFormatter(newInstance(property(prefix + ".formatter"), Formatter.class, new SimpleFormatter()));
+        setFilter(newInstance(property(prefix + ".filter"), Filter.class, null));
+        Charset charset;
+        try{
+            setEncoding(Objects.requireNonNullElse(property(prefix + ".encoding"), "UTF-8"));
+            charset = Charset.forName(getEncoding());
+        }catch(UnsupportedEncodingException | IllegalArgumentException e){
+            charset = StandardCharsets.UTF_8;
+        }
+        this.charset = charset;
+        this.out = System.err;
+
+        final int capacity = parseInt(property(prefix + ".capacity"), 8192);
+        final AsyncWorker.Policy policy = parsePolicy(property(prefix + ".policy"));
+        final int batch = parseInt(property(prefix + ".batch"), 256);
+        this.worker = new AsyncWorker<>("fn-event-router-log", capacity, policy, batch, this::writeBatch);
+    }
+
+    @Override
+    public void publish(LogRecord record){
+        if(!isLoggable(record)) return;
+        worker.submit(new Entry(record, Thread.currentThread().getName()));
+    }
+
+    @Override
+    public void flush(){
+        worker.flush(1000);
+    }
+
+    // writes the buffered records - LogManager closes the handlers at shutdown
+    @Override
+    public void close(){
+        worker.close();
+    }
+
+    private void writeBatch(List<Entry> batch){
+        final Formatter formatter = getFormatter();
+        final StringBuilder sb = new StringBuilder();
+        for(Entry entry : batch){
+            try{
+                sb.append(formatter instanceof JsonFormatter
+                    ? ((JsonFormatter)formatter).format(entry.record, entry.thread) : formatter.format(entry.record));
+            }catch(RuntimeException e){
+                reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            }
+        }
+        final long n = worker.takeDropped();
+        if(n > 0){
+            sb.append("[" + n + " log records dropped]" + System.lineSeparator());
+        }
+        try{
+            out.write(sb.toString().getBytes(charset));
+            out.flush();
+        }catch(Exception e){
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private static String property(String name){
+        final String value = LogManager.getLogManager().getProperty(name);
+        return Objects.isNull(value) || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static Level parseLevel(String value, Level defaultLevel){
+        try{
+            return Objects.isNull(value) ? defaultLevel : Level.parse(value);
+        }catch(IllegalArgumentException e){
+            return defaultLevel;
+        }
+    }
+
+    private static int parseInt(String value, int defaultValue){
+        try{
+            return Objects.isNull(value) ? defaultValue : Math.max(1, Integer.parseInt(value));
+        }catch(NumberFormatException e){
+            return defaultValue;
+        }
+    }
+
+    private static AsyncWorker.Policy parsePolicy(String value){
+        try{
+            return Objects.isNull(value) ? AsyncWorker.Policy.DROP : AsyncWorker.Policy.valueOf(value.toUpperCase(Locale.ROOT));
+        }catch(IllegalArgumentException e){
+            return AsyncWorker.Policy.DROP;
+        }
+    }
+
+    private static <T> T newInstance(String className, Class<T> type, T defaultValue){
+        if(Objects.isNull(className)) return defaultValue;
+        try{
+            final Class<?> clazz = ClassLoader.getSystemClassLoader().loadClass(className);
+            return type.cast(clazz.getConstructor().newInstance());
+        }catch(Exception e){
+            try{
+                final Class<?> clazz = Thread.currentThread().getContextClassLoader().loadClass(className);
+                return type.cast(clazz.getConstructor().newInstance());
+            }catch(Exception e2){
+                return defaultValue;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes lines to a stream from a background thread (AsyncWorker with DROP policy),
+ * flushing once per batch, so a slow stream never blocks request threads.
+ * Each batch is one write, so the lines are not interleaved with other writers of a shared stream such as System.err.
+ */
+public class AsyncLineWriter {
+
+    private static final int MAX_BATCH = 256;
+
+    private final OutputStream out;
+    private final AsyncWorker<String> worker;
+
+    public AsyncLineWriter(OutputStream stream, int capacity, String name){
+        this.out = stream;
+        this.worker = new AsyncWorker<>(name, capacity, AsyncWorker.Policy.DROP, MAX_BATCH, this::writeBatch);
+    }
+
+    // returns false if the line was dropped
+    public boolean write(String line){
+        return worker.submit(line);
+    }
+
+    public void close(){
+        worker.close();
+    }
+
+    private void writeBatch(List<String> batch){
+        final StringBuilder sb = new StringBuilder();
+        for(String line : batch){
+            sb.append(line).append('\n');
+        }
+        final long n = worker.takeDropped();
+        if(n > 0){
+            sb.append("[" + n + " lines dropped]\n");
+        }
+        try{
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }catch(IOException e){
+            // nowhere to report
+        }
+    }
+
+}
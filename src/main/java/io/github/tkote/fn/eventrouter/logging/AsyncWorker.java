@@ -0,0 +1,163 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue drained in batches by a daemon thread.
+ * Producers never do I/O: with DROP policy an item is discarded (and counted) when the queue
+ * is full, with BLOCK policy the producer waits for space. Queued items are processed
+ * when the worker is closed, which also happens at JVM shutdown unless it was closed before.
+ */
+public class AsyncWorker<T> {
+
+    public enum Policy { DROP, BLOCK }
+
+    private final BlockingQueue<T> queue;
+    private final Policy policy;
+    private final int maxBatch;
+    private final Consumer<List<T>> sink;
+    private final Thread worker;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition(); // signalled when processed advances
+    private long processed = 0; // guarded by lock
+    private final Thread shutdownHook;
+    private volatile boolean closed = false;
+
+    // sink is called on the worker thread only
+    public AsyncWorker(String name, int capacity, Policy policy, int maxBatch, Consumer<List<T>> sink){
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.sink = sink;
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+        this.shutdownHook = new Thread(this::close, name + "-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // returns false if the item was dropped
+    public boolean submit(T item){
+        if(closed){
+            dropped.increment();
+            return false;
+        }
+        if(policy == Policy.BLOCK){
+            // gives up if the worker is closed while waiting
+            try{
+                while(!queue.offer(item, 100, TimeUnit.MILLISECONDS)){
+                    if(closed){
+                        dropped.increment();
+                        return false;
+                    }
+                }
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                dropped.increment();
+                return false;
+            }
+        }else if(!queue.offer(item)){
+            dropped.increment();
+            return false;
+        }
+        // closed meanwhile - the worker may have drained the queue for the last time
+        if(closed && queue.remove(item)){
+            dropped.increment();
+            return false;
+        }
+        enqueued.incrementAndGet();
+        return true;
+    }
+
+    // number of dropped items since the last call
+    public long takeDropped(){
+        return dropped.sumThenReset();
+    }
+
+    // waits until the items submitted so far have been processed
+    public void flush(long timeoutMillis){
+        final long target = enqueued.get();
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try{
+            while(processed < target && worker.isAlive() && nanos > 0){
+                nanos = progress.awaitNanos(nanos);
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    // stops the worker after processing the queued items
+    public void close(){
+        if(closed) return;
+        closed = true;
+        if(Thread.currentThread() != shutdownHook){
+            try{
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            }catch(IllegalStateException e){
+                // shutting down - the hook is running or about to
+            }
+        }
+        worker.interrupt();
+        try{
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(){
+        final List<T> batch = new ArrayList<>(maxBatch);
+        while(!closed){
+            try{
+                batch.add(queue.take());
+            }catch(InterruptedException e){
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            process(batch);
+        }
+        // shutting down
+        queue.drainTo(batch);
+        process(batch);
+        // wakes flush() waiting for items which will never be processed
+        lock.lock();
+        try{
+            progress.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private void process(List<T> batch){
+        try{
+            sink.accept(batch);
+        }catch(RuntimeException e){
+            // keep the worker alive
+        }finally{
+            lock.lock();
+            try{
+                processed += batch.size();
+                progress.signalAll();
+            }finally{
+                lock.unlock();
+            }
+            batch.clear();
+        }
+    }
+
+}
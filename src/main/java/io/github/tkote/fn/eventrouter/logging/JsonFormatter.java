@@ -0,0 +1,97 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Formats a record as one line of json (JSON Lines) for log shipping:
+ * {"time":"2022-04-01T00:00:00.000Z","level":"INFO","logger":"...","host":"...","thread":"main","message":"...","thrown":"..."}
+ * "thrown" is present only if the record has an exception.
+ * "thread" is the name of the thread which logged - AsyncHandler passes it from the logging thread.
+ */
+public class JsonFormatter extends Formatter {
+
+    // per thread buffer and time cache
+    private static class State{
+        private final StringBuilder sb = new StringBuilder(256);
+        private long millis = Long.MIN_VALUE;
+        private String time;
+    }
+
+    private final String host = escape(SimpleFormatter.getHostname());
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    // synchronous handlers format on the logging thread
+    @Override
+    public String format(LogRecord record){
+        return format(record, Thread.currentThread().getName());
+    }
+
+    String format(LogRecord record, String thread){
+        final State st = state.get();
+        if(st.millis != record.getMillis()){
+            st.time = Instant.ofEpochMilli(record.getMillis()).toString();
+            st.millis = record.getMillis();
+        }
+        final StringBuilder sb = st.sb;
+        sb.setLength(0);
+        sb.append("{\"time\":\"").append(st.time)
+          .append("\",\"level\":\"").append(record.getLevel().getName())
+          .append("\",\"logger\":\"");
+        appendEscaped(sb, record.getLoggerName());
+        sb.append("\",\"host\":\"").append(host)
+          .append("\",\"thread\":\"");
+        appendEscaped(sb, thread);
+        sb.append("\",\"message\":\"");
+        appendEscaped(sb, formatMessage(record));
+        sb.append('"');
+        if(Objects.nonNull(record.getThrown())){
+            final StringWriter sw = new StringWriter();
+            try(PrintWriter pw = new PrintWriter(sw)){
+                record.getThrown().printStackTrace(pw);
+            }
+            sb.append(",\"thrown\":\"");
+            appendEscaped(sb, sw.toString());
+            sb.append('"');
+        }
+        sb.append("}\n");
+        final String line = sb.toString();
+        if(sb.capacity() > 64 * 1024){
+            sb.setLength(0);
+            sb.trimToSize();
+        }
+        return line;
+    }
+
+    private static String escape(String s){
+        final StringBuilder sb = new StringBuilder();
+        appendEscaped(sb, s);
+        return sb.toString();
+    }
+
+    static void appendEscaped(StringBuilder sb, String s){
+        if(Objects.isNull(s)) return;
+        for(int i = 0 ; i < s.length() ; i++){
+            final char c = s.charAt(i);
+            switch(c){
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if(c < 0x20){
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xf, 16));
+                    }else{
+                        sb.append(c);
+                    }
+            }
+        }
+    }
+
+}
@@ -1,11 +1,29 @@
 package io.github.tkote.fn.eventrouter.logging;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.InetAddress;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.logging.LogManager;
 import java.util.logging.LogRecord;
 
+/**
+ * Formats with the java.util.logging.SimpleFormatter.format pattern, replacing "!host!" with the host name.
+ * The pattern is parsed once; time fields are rendered once per millisecond and
+ * the line is built in a per-thread StringBuilder.
+ * Supported: literals, %n, %%, %&lt;1-6&gt;$s and %1$t&lt;Y|y|m|d|e|H|M|S|L&gt;.
+ * Other patterns (flags, width, ...) fall back to java.util.logging.SimpleFormatter.
+ */
 public class SimpleFormatter extends java.util.logging.SimpleFormatter{
 
+    private static final String FORMAT_PROPERTY = "java.util.logging.SimpleFormatter.format";
+    private static final String DEFAULT_FORMAT = "%1$tb %1$td, %1$tY %1$tl:%1$tM:%1$tS %1$Tp %2$s%n%4$s: %5$s%6$s%n";
+
     private static String hostname;
 
     static{
@@ -19,9 +37,196 @@ public class SimpleFormatter extends java.util.logging.SimpleFormatter{
         }
     }
 
+    static String getHostname(){
+        return hostname;
+    }
+
+    // parsed pattern element: literal text, argument (1-6) or time field of argument 1
+    private static class Token{
+        private final String literal;
+        private final int arg;
+        private final char time;
+        private Token(String literal, int arg, char time){
+            this.literal = literal;
+            this.arg = arg;
+            this.time = time;
+        }
+    }
+
+    // per thread buffer and time cache
+    private static class State{
+        private final StringBuilder sb = new StringBuilder(256);
+        private long millis = Long.MIN_VALUE;
+        private String[] times;
+    }
+
+    private final Token[] tokens; // null if the pattern is not supported
+    private final int numTimes;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    public SimpleFormatter(){
+        this(loadFormat());
+    }
+
+    public SimpleFormatter(String format){
+        this.tokens = parse(format.replace("!host!", hostname));
+        int n = 0;
+        if(Objects.nonNull(tokens)){
+            for(Token t : tokens) if(0 != t.time) n++;
+        }
+        this.numTimes = n;
+    }
+
     @Override
     public String format(LogRecord record) {
-        return super.format(record).replace("!host!", hostname);
+        if(Objects.isNull(tokens)){
+            return super.format(record).replace("!host!", hostname);
+        }
+        final State st = state.get();
+        final StringBuilder sb = st.sb;
+        sb.setLength(0);
+        if(numTimes > 0 && st.millis != record.getMillis()){
+            st.times = renderTimes(record.getMillis());
+            st.millis = record.getMillis();
+        }
+        int timeIndex = 0;
+        for(Token t : tokens){
+            if(Objects.nonNull(t.literal)){
+                sb.append(t.literal);
+            }else if(0 != t.time){
+                sb.append(st.times[timeIndex++]);
+            }else{
+                appendArg(sb, t.arg, record);
+            }
+        }
+        final String line = sb.toString();
+        if(sb.capacity() > 64 * 1024){
+            st.sb.setLength(0);
+            st.sb.trimToSize();
+        }
+        return line;
+    }
+
+    private void appendArg(StringBuilder sb, int arg, LogRecord record){
+        switch(arg){
+            case 1:
+                sb.append(ZonedDateTime.ofInstant(Instant.ofEpochMilli(record.getMillis()), zone));
+                break;
+            case 2:
+                if(Objects.nonNull(record.getSourceClassName())){
+                    sb.append(record.getSourceClassName());
+                    if(Objects.nonNull(record.getSourceMethodName())) sb.append(' ').append(record.getSourceMethodName());
+                }else{
+                    sb.append(record.getLoggerName());
+                }
+                break;
+            case 3:
+                sb.append(record.getLoggerName());
+                break;
+            case 4:
+                sb.append(record.getLevel().getLocalizedName());
+                break;
+            case 5:
+                sb.append(formatMessage(record));
+                break;
+            case 6:
+                if(Objects.nonNull(record.getThrown())){
+                    final StringWriter sw = new StringWriter();
+                    try(PrintWriter pw = new PrintWriter(sw)){
+                        pw.println();
+                        record.getThrown().printStackTrace(pw);
+                    }
+                    sb.append(sw);
+                }
+                break;
+            default:
+        }
+    }
+
+    private String[] renderTimes(long millis){
+        final ZonedDateTime t = ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+        final String[] times = new String[numTimes];
+        int i = 0;
+        for(Token token : tokens){
+            if(0 == token.time) continue;
+            switch(token.time){
+                case 'Y': times[i++] = pad(t.getYear(), 4); break;
+                case 'y': times[i++] = pad(t.getYear() % 100, 2); break;
+                case 'm': times[i++] = pad(t.getMonthValue(), 2); break;
+                case 'd': times[i++] = pad(t.getDayOfMonth(), 2); break;
+                case 'e': times[i++] = Integer.toString(t.getDayOfMonth()); break;
+                case 'H': times[i++] = pad(t.getHour(), 2); break;
+                case 'M': times[i++] = pad(t.getMinute(), 2); break;
+                case 'S': times[i++] = pad(t.getSecond(), 2); break;
+                case 'L': times[i++] = pad(t.getNano() / 1000000, 3); break;
+                default: times[i++] = "";
+            }
+        }
+        return times;
+    }
+
+    private static String pad(int value, int width){
+        final String s = Integer.toString(value);
+        if(s.length() >= width) return s;
+        final StringBuilder sb = new StringBuilder(width);
+        for(int i = s.length() ; i < width ; i++) sb.append('0');
+        return sb.append(s).toString();
+    }
+
+    // null if the pattern uses anything other than the supported conversions
+    static Token[] parse(String format){
+        final List<Token> tokens = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final int n = format.length();
+        int i = 0;
+        while(i < n){
+            final char c = format.charAt(i);
+            if(c != '%'){
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if(i + 1 >= n) return null;
+            final char next = format.charAt(i + 1);
+            if(next == 'n'){
+                literal.append(System.lineSeparator());
+                i += 2;
+                continue;
+            }else if(next == '%'){
+                literal.append('%');
+                i += 2;
+                continue;
+            }
+            // %<arg>$s or %1$t<field>
+            if(i + 3 >= n || next < '1' || next > '6' || format.charAt(i + 2) != '$') return null;
+            final int arg = next - '0';
+            final char conv = format.charAt(i + 3);
+            if(literal.length() > 0){
+                tokens.add(new Token(literal.toString(), 0, (char)0));
+                literal.setLength(0);
+            }
+            if(conv == 's'){
+                tokens.add(new Token(null, arg, (char)0));
+                i += 4;
+            }else if(conv == 't' && arg == 1 && i + 4 < n && "YymdeHMSL".indexOf(format.charAt(i + 4)) >= 0){
+                tokens.add(new Token(null, arg, format.charAt(i + 4)));
+                i += 5;
+            }else{
+                return null;
+            }
+        }
+        if(literal.length() > 0){
+            tokens.add(new Token(literal.toString(), 0, (char)0));
+        }
+        return tokens.toArray(new Token[0]);
+    }
+
+    // the system property wins, same as java.util.logging.SimpleFormatter
+    private static String loadFormat(){
+        String format = System.getProperty(FORMAT_PROPERTY);
+        if(Objects.isNull(format)) format = LogManager.getLogManager().getProperty(FORMAT_PROPERTY);
+        return Objects.isNull(format) ? DEFAULT_FORMAT : format;
     }
 
 }
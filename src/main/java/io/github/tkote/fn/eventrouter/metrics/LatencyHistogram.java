@@ -0,0 +1,118 @@
+package io.github.tkote.fn.eventrouter.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (HdrHistogram style).
+ * Each power of two is split into 8 linear sub-buckets, so a recorded value is
+ * reported with at most 12.5% error. Values are nanoseconds.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos){
+        final long v = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    // a consistent enough copy to compute percentiles from
+    public Snapshot snapshot(){
+        final long[] c = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0 ; i < BUCKETS ; i++){
+            c[i] = counts.get(i);
+            total += c[i];
+        }
+        return new Snapshot(c, total, sum.sum(), max.get());
+    }
+
+    static int indexOf(long v){
+        if(v < SUB) return (int)v;
+        final int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB + (int)((v >>> shift) & (SUB - 1));
+    }
+
+    // lowest value which falls into the bucket
+    static long lowerBoundOf(int index){
+        if(index < SUB) return index;
+        final int shift = index / SUB - 1;
+        return ((long)(SUB + index % SUB)) << shift;
+    }
+
+    public static class Snapshot{
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max){
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount(){
+            return count;
+        }
+
+        public long getMax(){
+            return max;
+        }
+
+        public double getMean(){
+            return 0 == count ? 0 : (double)sum / count;
+        }
+
+        // upper bound of the bucket holding the percentile, capped by max
+        public long getPercentile(double percentile){
+            if(0 == count) return 0;
+            final long rank = Math.max(1, (long)Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for(int i = 0 ; i < counts.length ; i++){
+                seen += counts[i];
+                if(seen >= rank){
+                    final long upper = i + 1 < BUCKETS ? lowerBoundOf(i + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+
+        // summary in microseconds
+        public Map<String, Object> toMap(){
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("mean", micros((long)getMean()));
+            map.put("p50", micros(getPercentile(50)));
+            map.put("p90", micros(getPercentile(90)));
+            map.put("p99", micros(getPercentile(99)));
+            map.put("max", micros(max));
+            return map;
+        }
+
+        private static double micros(long nanos){
+            return Math.round(nanos / 100.0) / 10.0;
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package io.github.tkote.fn.eventrouter.metrics;
+
+import java.util.Map;
+
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+
+/**
+ * Reserved route which returns the metrics as json.
+ * Registered by EventRouter when the METRICS_ENDPOINT configuration is "true".
+ */
+public class MetricsEndpoint {
+    private final MetricsRegistry registry;
+
+    public MetricsEndpoint(MetricsRegistry registry){
+        this.registry = registry;
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/_metrics")
+    public Map<String, Object> metrics(){
+        return registry.report();
+    }
+
+}
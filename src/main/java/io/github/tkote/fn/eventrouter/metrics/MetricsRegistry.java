@@ -0,0 +1,78 @@
+package io.github.tkote.fn.eventrouter.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import io.github.tkote.fn.eventrouter.HttpEventHelper;
+
+/**
+ * Metrics of all routes of an EventRouter.
+ * RouteMetrics are registered at setup time and referred directly by the handlers,
+ * so recording needs no lookup.
+ */
+public class MetricsRegistry {
+    private final static Logger logger = Logger.getLogger(MetricsRegistry.class.getName());
+
+    private final List<RouteMetrics> routes = new CopyOnWriteArrayList<>();
+    private final LongAdder unmatched = new LongAdder();
+    private ScheduledExecutorService reporter;
+
+    public void register(RouteMetrics metrics){
+        routes.add(metrics);
+    }
+
+    // requests which no handler matched
+    public void unmatched(){
+        unmatched.increment();
+    }
+
+    public List<RouteMetrics> getRoutes(){
+        return new ArrayList<>(routes);
+    }
+
+    // routes which have not been requested yet are omitted
+    public Map<String, Object> report(){
+        final List<Map<String, Object>> list = new ArrayList<>();
+        routes.stream().filter(r -> r.getRequests() > 0).forEach(r -> list.add(r.toMap()));
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("routes", list);
+        map.put("unmatched", unmatched.sum());
+        return map;
+    }
+
+    // logs the report as one json line every interval seconds
+    public synchronized void startReporter(long intervalSeconds){
+        if(intervalSeconds <= 0 || null != reporter) return;
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "fn-event-router-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(this::log, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        logger.fine("Metrics reporter started: interval=" + intervalSeconds + "s");
+    }
+
+    public synchronized void stopReporter(){
+        if(null != reporter){
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    private void log(){
+        try{
+            logger.info("metrics " + HttpEventHelper.getObjectMapper().writeValueAsString(report()));
+        }catch(Exception e){
+            logger.warning("Couldn't report metrics - " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.tkote.fn.eventrouter.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and phase latencies of one route.
+ * bind: resolving handler arguments, invoke: the handler method,
+ * serialize: converting the result into an OutputEvent.
+ */
+public class RouteMetrics {
+    private final String name;
+    private final String method;
+    private final String path;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram bind = new LatencyHistogram();
+    private final LatencyHistogram invoke = new LatencyHistogram();
+    private final LatencyHistogram serialize = new LatencyHistogram();
+
+    public RouteMetrics(String name, String method, String path){
+        this.name = name;
+        this.method = method;
+        this.path = path;
+    }
+
+    public void request(){
+        requests.increment();
+    }
+
+    public void error(){
+        errors.increment();
+    }
+
+    public void recordBind(long nanos){
+        bind.record(nanos);
+    }
+
+    public void recordInvoke(long nanos){
+        invoke.record(nanos);
+    }
+
+    public void recordSerialize(long nanos){
+        serialize.record(nanos);
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    public long getRequests(){
+        return requests.sum();
+    }
+
+    public long getErrors(){
+        return errors.sum();
+    }
+
+    public LatencyHistogram getBind(){
+        return bind;
+    }
+
+    public LatencyHistogram getInvoke(){
+        return invoke;
+    }
+
+    public LatencyHistogram getSerialize(){
+        return serialize;
+    }
+
+    public Map<String, Object> toMap(){
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("route", name);
+        map.put("method", method);
+        map.put("path", path);
+        map.put("requests", getRequests());
+        map.put("errors", getErrors());
+        map.put("bind", bind.snapshot().toMap());
+        map.put("invoke", invoke.snapshot().toMap());
+        map.put("serialize", serialize.snapshot().toMap());
+        return map;
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.github.tkote.fn.eventrouter.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+
+/**
+ * Limits the concurrent calls to one upstream, so that a slow upstream cannot hold all the threads
+ * and connections of the function. A call over the limit waits at most maxWaitMillis (bounded by the deadline)
+ * and is then rejected with HttpStatusException(503) - queueing is kept short instead of billed.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMillis){
+        if(maxConcurrent < 1){
+            throw new IllegalArgumentException("Invalid max concurrent calls: " + maxConcurrent);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public <T> T execute(Callable<T> call, Deadline deadline) throws Exception {
+        acquire(deadline);
+        try{
+            return call.call();
+        }finally{
+            release();
+        }
+    }
+
+    // a caller which returns normally must release
+    public void acquire(Deadline deadline) throws InterruptedException {
+        final long wait = Math.min(maxWaitMillis, deadline.remainingMillis());
+        if(!(0 == wait ? permits.tryAcquire() : permits.tryAcquire(wait, TimeUnit.MILLISECONDS))){
+            rejected.increment();
+            throw new HttpStatusException(503, "Service Unavailable - too many concurrent calls: " + name);
+        }
+    }
+
+    public void release(){
+        permits.release();
+    }
+
+    public int getActive(){
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long getRejected(){
+        return rejected.sum();
+    }
+
+    public Map<String, Object> toMap(){
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("active", getActive());
+        map.put("max", maxConcurrent);
+        map.put("rejected", getRejected());
+        return map;
+    }
+
+}
@@ -0,0 +1,191 @@
+package io.github.tkote.fn.eventrouter.resilience;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+
+/**
+ * Circuit breaker of one upstream.
+ * Opens when the failure rate within the sliding window reaches the threshold (after minCalls calls),
+ * and then rejects calls with HttpStatusException(503) without calling the upstream - a dead upstream
+ * costs nothing instead of the full timeout of every call. After openDuration one probe call is let through:
+ * the circuit closes if it succeeds, and opens again if it fails.
+ * Lock-free - the window is a ring of time buckets replaced by CAS, and the state is swapped by CAS.
+ */
+public class CircuitBreaker {
+    private final static Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int BUCKETS = 10;
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private Bucket(long epoch){
+            this.epoch = epoch;
+        }
+    }
+
+    // immutable, replaced as a whole
+    private static final class Status {
+        private final State state;
+        private final long since; // millis
+        private Status(State state, long since){
+            this.state = state;
+            this.since = since;
+        }
+    }
+
+    private final String name;
+    private final double failureRate;
+    private final int minCalls;
+    private final long bucketMillis;
+    private final long openMillis;
+
+    private final AtomicReferenceArray<Bucket> window = new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicReference<Status> status = new AtomicReference<>(new Status(State.CLOSED, 0));
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name the upstream, for logs and errors
+     * @param failureRate percentage of failed calls in the window which opens the circuit
+     * @param minCalls calls in the window before the failure rate is evaluated
+     * @param window length of the sliding window
+     * @param openDuration how long the circuit stays open before a probe call
+     */
+    public CircuitBreaker(String name, double failureRate, int minCalls, Duration window, Duration openDuration){
+        if(failureRate <= 0 || failureRate > 100){
+            throw new IllegalArgumentException("Invalid failure rate: " + failureRate);
+        }
+        this.name = name;
+        this.failureRate = failureRate;
+        this.minCalls = Math.max(1, minCalls);
+        this.bucketMillis = Math.max(1, window.toMillis() / BUCKETS);
+        this.openMillis = openDuration.toMillis();
+    }
+
+    /**
+     * Calls the upstream unless the circuit is open.
+     * An exception or a result matching failed counts as a failure - except an interruption, which is a cancellation
+     * (as is any exception once the thread has been interrupted, e.g. an aborted socket).
+     */
+    public <T> T execute(Callable<T> call, Predicate<? super T> failed) throws Exception {
+        if(!tryAcquire()){
+            throw new HttpStatusException(503, "Service Unavailable - circuit open: " + name);
+        }
+        final T result;
+        try{
+            result = call.call();
+        }catch(InterruptedException | InterruptedIOException e){
+            throw e;
+        }catch(Exception e){
+            if(!Thread.currentThread().isInterrupted()) onFailure();
+            throw e;
+        }
+        if(failed.test(result)) onFailure(); else onSuccess();
+        return result;
+    }
+
+    // false if the call must be rejected - a caller which gets true must report onSuccess or onFailure
+    public boolean tryAcquire(){
+        while(true){
+            final Status s = status.get();
+            if(State.CLOSED == s.state) return true;
+            // open, or a probe in flight - another probe if it has hung for openDuration
+            final long now = System.currentTimeMillis();
+            if(now - s.since < openMillis){
+                rejected.increment();
+                return false;
+            }
+            if(status.compareAndSet(s, new Status(State.HALF_OPEN, now))){
+                logger.fine("Circuit half-open: " + name);
+                return true;
+            }
+        }
+    }
+
+    public void onSuccess(){
+        bucket().successes.increment();
+        final Status s = status.get();
+        if(State.HALF_OPEN == s.state && status.compareAndSet(s, new Status(State.CLOSED, System.currentTimeMillis()))){
+            // the failures before opening do not count any more
+            for(int i = 0 ; i < BUCKETS ; i++) window.set(i, null);
+            logger.info("Circuit closed: " + name);
+        }
+    }
+
+    public void onFailure(){
+        bucket().failures.increment();
+        final Status s = status.get();
+        if(State.HALF_OPEN == s.state){
+            if(status.compareAndSet(s, new Status(State.OPEN, System.currentTimeMillis()))){
+                logger.warning("Circuit re-opened: " + name);
+            }
+        }else if(State.CLOSED == s.state){
+            final long[] counts = counts();
+            final long total = counts[0] + counts[1];
+            if(total >= minCalls && counts[1] * 100.0 / total >= failureRate
+                    && status.compareAndSet(s, new Status(State.OPEN, System.currentTimeMillis()))){
+                logger.warning("Circuit opened: " + name + " - " + counts[1] + " failures of " + total + " calls");
+            }
+        }
+    }
+
+    public State getState(){
+        return status.get().state;
+    }
+
+    public long getRejected(){
+        return rejected.sum();
+    }
+
+    public Map<String, Object> toMap(){
+        final long[] counts = counts();
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", getState().name());
+        map.put("successes", counts[0]);
+        map.put("failures", counts[1]);
+        map.put("rejected", getRejected());
+        return map;
+    }
+
+    // the bucket of now, replacing the stale one at its slot
+    private Bucket bucket(){
+        final long epoch = System.currentTimeMillis() / bucketMillis;
+        final int index = (int)(epoch % BUCKETS);
+        while(true){
+            final Bucket bucket = window.get(index);
+            // a newer one if this thread was descheduled for a whole window - close enough
+            if(Objects.nonNull(bucket) && bucket.epoch >= epoch) return bucket;
+            final Bucket fresh = new Bucket(epoch);
+            if(window.compareAndSet(index, bucket, fresh)) return fresh;
+        }
+    }
+
+    // {successes, failures} within the window
+    private long[] counts(){
+        final long oldest = System.currentTimeMillis() / bucketMillis - BUCKETS + 1;
+        final long[] counts = new long[2];
+        for(int i = 0 ; i < BUCKETS ; i++){
+            final Bucket bucket = window.get(i);
+            if(Objects.nonNull(bucket) && bucket.epoch >= oldest){
+                counts[0] += bucket.successes.sum();
+                counts[1] += bucket.failures.sum();
+            }
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.github.tkote.fn.eventrouter.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket which bounds the extra load of retries and hedged requests.
+ * Every original call deposits ratio tokens (up to capacity), and every extra attempt withdraws one -
+ * so at most ratio of the calls are retried in the long run, and at most capacity in a burst.
+ * When an upstream is down the budget runs dry quickly instead of multiplying its load.
+ * Lock-free - the tokens are kept in thousandths in an AtomicLong.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong tokens;
+
+    // starts full
+    public RetryBudget(double ratio, double capacity){
+        if(ratio < 0 || capacity < 0){
+            throw new IllegalArgumentException("Negative retry budget: ratio=" + ratio + ", capacity=" + capacity);
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = Math.round(capacity * SCALE);
+        this.tokens = new AtomicLong(this.capacity);
+    }
+
+    // an original call
+    public void deposit(){
+        if(0 == deposit) return;
+        tokens.accumulateAndGet(deposit, (t, d) -> Math.min(capacity, t + d));
+    }
+
+    // true if an extra attempt is allowed
+    public boolean tryWithdraw(){
+        while(true){
+            final long t = tokens.get();
+            if(t < SCALE) return false;
+            if(tokens.compareAndSet(t, t - SCALE)) return true;
+        }
+    }
+
+    public double getTokens(){
+        return (double)tokens.get() / SCALE;
+    }
+
+}
@@ -0,0 +1,175 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.InputEvent;
+import com.fnproject.fn.api.InvocationContext;
+import com.fnproject.fn.api.OutputEvent;
+import com.fnproject.fn.api.QueryParameters;
+import com.fnproject.fn.api.RuntimeContext;
+import com.fnproject.fn.api.httpgateway.HTTPGatewayContext;
+
+import io.github.tkote.fn.eventrouter.handler.Nop;
+import io.github.tkote.fn.eventrouter.handler.Orders;
+import io.github.tkote.fn.eventrouter.metrics.RouteMetrics;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Hammers handleRequest of one router from many threads.
+ * FnTestingRule runs the events one by one, so the FDK context objects are faked here.
+ */
+public class ConcurrentDispatchTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 1000; // per thread
+
+    private static EventRouter router;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        final Map<String, String> config = new HashMap<>();
+        config.put("WARMUP", "off");
+        router = new EventRouter();
+        router.setUp(new TestRuntimeContext(config), List.of(
+            new ReflectiveBeanDefinition(Nop.class), new ReflectiveBeanDefinition(Orders.class)));
+    }
+
+    @Test
+    public void testConcurrentDispatch() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try{
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for(int t = 0 ; t < THREADS ; t++){
+                final int thread = t;
+                futures.add(executor.submit((Callable<Integer>)() -> {
+                    start.await();
+                    int ok = 0;
+                    for(int i = 0 ; i < REQUESTS ; i++){
+                        final int id = thread * REQUESTS + i;
+                        switch(i % 3){
+                            case 0:
+                                assertEquals("{\"id\":" + id + ",\"item\":\"item" + i + "\",\"count\":" + thread + ",\"client\":\"client" + thread + "\"}",
+                                    call("GET", "/orders/" + id + "/items/item" + i + "?count=" + thread, null, "client" + thread));
+                                break;
+                            case 1:
+                                assertEquals("{\"lines\":2,\"count\":" + (id + 1) + "}",
+                                    call("POST", "/orders", "[{\"item\":\"a\",\"count\":" + id + "},{\"item\":\"b\",\"count\":1}]", null));
+                                break;
+                            default:
+                                assertEquals("", call("GET", "/nop", null, null));
+                        }
+                        ok++;
+                    }
+                    return ok;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for(Future<Integer> future : futures){
+                total += future.get();
+            }
+            assertEquals(THREADS * REQUESTS, total);
+        }finally{
+            executor.shutdownNow();
+        }
+
+        // no lost updates in the shared metrics
+        long requests = 0, errors = 0;
+        for(RouteMetrics route : router.getMetrics().getRoutes()){
+            requests += route.getRequests();
+            errors += route.getErrors();
+        }
+        assertEquals(THREADS * REQUESTS, requests);
+        assertEquals(0, errors);
+    }
+
+    private static String call(String method, String url, String body, String client) throws Exception {
+        final TestRequest request = new TestRequest(method, url, body, client);
+        final OutputEvent output = router.handleRequest(request, request, null);
+        assertEquals(200, request.status);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.writeToOutput(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static class TestRuntimeContext implements RuntimeContext {
+        private final Map<String, String> config;
+        private TestRuntimeContext(Map<String, String> config){
+            this.config = config;
+        }
+        public String getAppID(){ return "appid"; }
+        public String getFunctionID(){ return "fnid"; }
+        public String getAppName(){ return "testapp"; }
+        public String getFunctionName(){ return "testfunc"; }
+        public Optional<Object> getInvokeInstance(){ return Optional.empty(); }
+        public Optional<String> getConfigurationByKey(String key){ return Optional.ofNullable(config.get(key)); }
+        public Map<String, String> getConfiguration(){ return config; }
+    }
+
+    // both the input event and the gateway context of one request
+    private static class TestRequest implements InputEvent, HTTPGatewayContext, QueryParameters {
+        private final String method;
+        private final String url;
+        private final byte[] body;
+        private final Headers headers;
+        private final Map<String, List<String>> query = new HashMap<>();
+        private volatile int status = 200;
+
+        private TestRequest(String method, String url, String body, String client){
+            this.method = method;
+            this.url = url;
+            this.body = null == body ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            this.headers = null == client ? Headers.emptyHeaders() : Headers.fromMap(Map.of("X-Client", client));
+            final int ndx = url.indexOf('?');
+            if(ndx >= 0){
+                for(String kv : url.substring(ndx + 1).split("&")){
+                    final String[] pair = kv.split("=", 2);
+                    query.computeIfAbsent(pair[0], k -> new ArrayList<>()).add(pair.length > 1 ? pair[1] : "");
+                }
+            }
+        }
+
+        // InputEvent
+        public <T> T consumeBody(Function<InputStream, T> dest){ return dest.apply(new ByteArrayInputStream(body)); }
+        public String getCallID(){ return "call"; }
+        public Instant getDeadline(){ return Instant.now().plusSeconds(30); }
+        public Headers getHeaders(){ return headers; }
+        public void close(){}
+
+        // HTTPGatewayContext
+        public InvocationContext getInvocationContext(){ return null; }
+        public String getRequestURL(){ return url; }
+        public String getMethod(){ return method; }
+        public QueryParameters getQueryParameters(){ return this; }
+        public void addResponseHeader(String key, String value){}
+        public void setResponseHeader(String key, String value, String... vs){}
+        public void setStatusCode(int code){ status = code; }
+
+        // QueryParameters
+        public Optional<String> get(String key){ return Optional.ofNullable(query.get(key)).map(l -> l.get(0)); }
+        public List<String> getValues(String key){ return query.getOrDefault(key, Collections.emptyList()); }
+        public int size(){ return query.size(); }
+        public Map<String, List<String>> getAll(){ return query; }
+    }
+
+}
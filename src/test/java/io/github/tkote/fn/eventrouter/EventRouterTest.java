@@ -1,6 +1,14 @@
 package io.github.tkote.fn.eventrouter;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.fnproject.fn.testing.*;
+import io.github.tkote.fn.eventrouter.logging.AccessLog;
+import io.github.tkote.fn.eventrouter.logging.AsyncLineWriter;
 import org.junit.*;
 import static org.junit.Assert.*;
 
@@ -71,6 +79,235 @@ public class EventRouterTest {
         System.out.println(fnResult.getBodyAsString());
     }
 
+    @Test
+    public void testPathTemplate() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/v1/orders/123/items/blue%20pen?count=3")
+        .withHeader("Fn-Http-H-X-Client", "junit")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        FnResult fnResult = testing.getOnlyResult();
+        assertEquals("application/json", fnResult.getContentType().get());
+        assertEquals("{\"id\":123,\"item\":\"blue pen\",\"count\":3,\"client\":\"junit\"}", fnResult.getBodyAsString());
+    }
+
+    @Test
+    public void testGenericBody() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "POST")
+        .withHeader("Fn-Http-Request-Url", "/v1/orders")
+        .withBody("[{\"item\":\"pen\",\"count\":2},{\"item\":\"ink\",\"count\":3}]")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("{\"lines\":2,\"count\":5}", testing.getOnlyResult().getBodyAsString());
+    }
+
+    @Test
+    public void testPathTemplateInvalidParam() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/v1/orders/123/items/pen?count=many")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        FnResult fnResult = testing.getOnlyResult();
+        assertEquals("400", fnResult.getHeaders().get("Fn-Http-Status").get());
+    }
+
+    @Test
+    public void testStreamingBody() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "POST")
+        .withHeader("Fn-Http-Request-Url", "/upload")
+        .withBody(new byte[10000])
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "POST")
+        .withHeader("Fn-Http-Request-Url", "/lines")
+        .withHeader("Fn-Http-H-Content-Type", "text/plain; charset=UTF-8")
+        .withBody("a\nb\nc\n")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("size=10000", testing.getResults().get(0).getBodyAsString());
+        assertEquals("lines=3", testing.getResults().get(1).getBodyAsString());
+    }
+
+    @Test
+    public void testStreamingOutput() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/download?lines=2")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("line0\nline1\n", testing.getResults().get(0).getBodyAsString());
+    }
 
+    @Test
+    public void testMetrics() {
+        testing.setConfig("METRICS_ENDPOINT", "true");
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/nop")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/_metrics")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        final String body = testing.getResults().get(1).getBodyAsString();
+        assertTrue(body.contains("\"route\":\"io.github.tkote.fn.eventrouter.handler.Nop#nop\",\"method\":\"GET\",\"path\":\".*/nop\",\"requests\":1,\"errors\":0"));
+        assertTrue(body.contains("\"unmatched\":0"));
+    }
+
+    @Test
+    public void testInitOrder() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/chain")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/lazy")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("dependencyReady=true,lazyInits=0,warmups=1", testing.getResults().get(0).getBodyAsString());
+        assertEquals("inits=1", testing.getResults().get(1).getBodyAsString());
+    }
+
+    @Test
+    public void testConstructorInjection() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/wiring")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("Hello, wiring,dependency=true,provider=true,rctx=true", testing.getResults().get(0).getBodyAsString());
+    }
+
+    @Test
+    public void testFanOut() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/fanout?n=4")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/fanout?n=4&fail=2")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("results=[0, 1, 2, 3],concurrent=true", testing.getResults().get(0).getBodyAsString());
+        assertEquals("502", testing.getResults().get(1).getHeaders().get("Fn-Http-Status").get());
+        assertEquals("Bad Gateway - call 2", testing.getResults().get(1).getBodyAsString());
+    }
+
+    @Test
+    public void testDeadline() {
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/budget")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/budget")
+        .withHeader("Fn-Http-H-X-Request-Deadline", "2000-01-01T00:00:00Z")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/budget?sleep=5000")
+        .withHeader("Fn-Http-H-X-Request-Deadline", java.time.Instant.now().plusMillis(1000).toString())
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        assertEquals("calls=1", testing.getResults().get(0).getBodyAsString());
+        // expired - the handler is not called
+        assertEquals("504", testing.getResults().get(1).getHeaders().get("Fn-Http-Status").get());
+        // budget used up in the handler
+        assertEquals("504", testing.getResults().get(2).getHeaders().get("Fn-Http-Status").get());
+    }
+
+    @Test
+    public void testWarmupGate() {
+        testing.setConfig("WARMUP", "background");
+        testing.setConfig("WARMUP_GATE", "reject");
+        testing.setConfig("TEST_WARMUP_SLEEP", "1000");
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/nop")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+        FnResult fnResult = testing.getOnlyResult();
+        assertEquals("503", fnResult.getHeaders().get("Fn-Http-Status").get());
+    }
+
+    // the access log is written by a background thread
+    private List<String> awaitAccessLog(int lines) throws InterruptedException {
+        List<String> accessLog = List.of();
+        for(int i = 0 ; i < 500 && accessLog.size() < lines ; i++){
+            Thread.sleep(10);
+            accessLog = Arrays.stream(testing.getStdErrAsString().split("\\R"))
+                .filter(line -> line.startsWith("ACCESS ")).collect(Collectors.toList());
+        }
+        return accessLog;
+    }
+
+    @Test
+    public void testAccessLog() throws Exception {
+        testing.setConfig("ACCESS_LOG", "true");
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/nop?foo=bar")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "GET")
+        .withHeader("Fn-Http-Request-Url", "/v1/orders/123/items/pen?count=many")
+        .enqueue();
+        testing
+        .givenEvent()
+        .withHeader("Fn-Http-Method", "DELETE")
+        .withHeader("Fn-Http-Request-Url", "/no-such-path")
+        .enqueue();
+        testing.thenRun(EventRouter.class, "handleRequest");
+
+        // method path(without query) status elapsed handler callId
+        final List<String> lines = awaitAccessLog(3);
+        assertEquals(lines.toString(), 3, lines.size());
+        assertTrue(lines.get(0), lines.get(0).matches("ACCESS GET /nop 200 \\d+\\.\\d{3}ms io\\.github\\.tkote\\.fn\\.eventrouter\\.handler\\.Nop#nop \\S+"));
+        assertTrue(lines.get(1), lines.get(1).matches("ACCESS GET /v1/orders/123/items/pen 400 \\d+\\.\\d{3}ms \\S+#\\S+ \\S+"));
+        assertTrue(lines.get(2), lines.get(2).matches("ACCESS DELETE /no-such-path 500 \\d+\\.\\d{3}ms - \\S+"));
+        // the START/END lines are FINE
+        assertFalse(testing.getStdErrAsString().contains("HTTP Request (START)"));
+    }
+
+    @Test
+    public void testAccessLogLine() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AsyncLineWriter writer = new AsyncLineWriter(out, 16, "test-access-log");
+        final AccessLog accessLog = new AccessLog(writer);
+        accessLog.log("GET", "/a", 200, 1_234_567L, "Handler#a", "01ABC");
+        accessLog.log("POST", "/b", 503, 5_000L, null, null);
+        accessLog.log("PUT", "/c", 504, 12_000_999_999L, "Handler#c", "01DEF");
+        writer.close(); // writes the queued lines
+        assertEquals("ACCESS GET /a 200 1.234ms Handler#a 01ABC\n"
+            + "ACCESS POST /b 503 0.005ms - -\n"
+            + "ACCESS PUT /c 504 12000.999ms Handler#c 01DEF\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
 
-}
\ No newline at end of file
+}
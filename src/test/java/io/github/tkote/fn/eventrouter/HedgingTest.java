@@ -0,0 +1,182 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.tkote.fn.eventrouter.resilience.RetryBudget;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Hedging and retries against a local stub server.
+ * The server replies with the status and after the delay queued by each test, then 200 immediately.
+ */
+public class HedgingTest {
+
+    private static HttpServer server;
+    private static String url;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    private static final ConcurrentLinkedQueue<int[]> script = new ConcurrentLinkedQueue<>(); // {status, delay}
+    private static final AtomicInteger served = new AtomicInteger();
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            final int[] next = script.poll();
+            final int status = null == next ? 200 : next[0];
+            try{
+                if(null != next && next[1] > 0) Thread.sleep(next[1]);
+                final byte[] body = ("" + served.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, body.length);
+                try(OutputStream out = exchange.getResponseBody()){
+                    out.write(body);
+                }
+            }catch(InterruptedException | IOException e){
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterClass
+    public static void stopServer(){
+        server.stop(0);
+    }
+
+    @Before
+    public void reset(){
+        script.clear();
+    }
+
+    private static Callable<HttpResponse<String>> get(){
+        return () -> client.send(HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        final Hedging hedging = new Hedging(90, 20, 10, 2, new RetryBudget(0.1, 1));
+        final Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+        assertEquals(-1, hedging.hedgeDelayMillis(url));
+        for(int i = 0 ; i < 20 ; i++){
+            assertEquals(200, hedging.execute(url, get(), r -> false, deadline).statusCode());
+        }
+        final long delay = hedging.hedgeDelayMillis(url); // fast upstream - close to the minimum
+        assertTrue(delay >= 10 && delay < 1000);
+
+        // the first attempt stalls, the hedged one answers
+        script.add(new int[]{200, 3000});
+        final long start = System.currentTimeMillis();
+        assertEquals(200, hedging.execute(url, get(), r -> false, deadline).statusCode());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(1, hedging.getHedges());
+
+        // the budget is spent - no more hedging
+        final Hedging exhausted = new Hedging(90, 0, 10, 2, new RetryBudget(0, 0));
+        script.add(new int[]{200, 300});
+        assertEquals(200, exhausted.execute(url, get(), r -> false, deadline).statusCode());
+        assertEquals(0, exhausted.getHedges());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        final Hedging hedging = new Hedging(0, 0, 0, 3, new RetryBudget(0.1, 2));
+        final Deadline deadline = Deadline.after(Duration.ofSeconds(10));
+
+        script.add(new int[]{503, 0});
+        script.add(new int[]{502, 0});
+        assertEquals(200, hedging.execute(url, get(), r -> r.statusCode() >= 502, deadline).statusCode());
+        assertEquals(2, hedging.getRetries());
+
+        assertEquals(0, hedging.getBudget().getTokens(), 1e-9);
+
+        // 0.1 tokens left - the last retryable response is returned as is
+        script.add(new int[]{503, 0});
+        assertEquals(503, hedging.execute(url, get(), r -> r.statusCode() >= 502, deadline).statusCode());
+        assertEquals(0.1, hedging.getBudget().getTokens(), 1e-9);
+        assertEquals(2, hedging.getRetries());
+    }
+
+    // a blocking socket read isn't interruptible - the attempt which lost is aborted through FanOut.onCancel
+    @Test
+    public void testAbort() throws Exception {
+        final Hedging hedging = new Hedging(50, 1, 10, 2, new RetryBudget(0.1, 1));
+        final URI uri = URI.create(url);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        final Callable<String> get = () -> {
+            try(Socket socket = new Socket(uri.getHost(), uri.getPort())){
+                FanOut.onCancel(() -> {
+                    try{
+                        socket.close();
+                    }catch(IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                final String status = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+                return status.substring(9, 12); // HTTP/1.1 200 OK
+            }catch(IOException e){
+                if(Thread.currentThread().isInterrupted()) aborted.countDown();
+                throw e;
+            }
+        };
+        hedging.execute(url, get, r -> false, Deadline.NONE); // a sample for the hedge delay
+
+        script.add(new int[]{200, 3000});
+        final long start = System.currentTimeMillis();
+        assertEquals("200", hedging.execute(url, get, r -> false, Deadline.after(Duration.ofSeconds(10))));
+        assertEquals(1, hedging.getHedges());
+        assertTrue(aborted.await(1, TimeUnit.SECONDS)); // not after the 3 seconds of the slow response
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        final Hedging hedging = new Hedging(0, 0, 0, 2, new RetryBudget(0.1, 1));
+        script.add(new int[]{200, 2000});
+        try{
+            hedging.execute(url, get(), r -> false, Deadline.after(Duration.ofMillis(300)));
+            fail();
+        }catch(HttpStatusException e){
+            assertEquals(504, e.getStatus());
+        }
+    }
+
+    @Test
+    public void testRetryBudget(){
+        final RetryBudget budget = new RetryBudget(0.5, 1);
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        budget.deposit(); // capped
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fnproject.fn.api.Headers;
+import com.fnproject.fn.api.InputEvent;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class HttpEventHelperTest {
+
+    private static class TestEvent implements InputEvent {
+        private final byte[] body;
+        private final Headers headers;
+
+        // contentLength null - no Content-Length header
+        private TestEvent(byte[] body, String contentLength, String contentType){
+            this.body = body;
+            final Map<String, String> map = new HashMap<>();
+            if(null != contentLength) map.put("Content-Length", contentLength);
+            if(null != contentType) map.put("Content-Type", contentType);
+            this.headers = Headers.fromMap(map);
+        }
+
+        public <T> T consumeBody(Function<InputStream, T> dest){ return dest.apply(new ByteArrayInputStream(body)); }
+        public String getCallID(){ return "call"; }
+        public Instant getDeadline(){ return Instant.now().plusSeconds(30); }
+        public Headers getHeaders(){ return headers; }
+        public void close(){}
+    }
+
+    // returns at most 3 bytes per read, as a socket may
+    private static InputStream trickle(byte[] bytes){
+        return new FilterInputStream(new ByteArrayInputStream(bytes)){
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(3, len));
+            }
+        };
+    }
+
+    private static byte[] bytes(int length){
+        final byte[] bytes = new byte[length];
+        for(int i = 0 ; i < length ; i++) bytes[i] = (byte)i;
+        return bytes;
+    }
+
+    @Test
+    public void testString(){
+        final byte[] body = "\u3042\u3044\u3046 abc".getBytes(StandardCharsets.UTF_8);
+        assertEquals("\u3042\u3044\u3046 abc", HttpEventHelper.getInputBody(new TestEvent(body, "" + body.length, null), String.class));
+        assertEquals("\u3042\u3044\u3046 abc", HttpEventHelper.getInputBody(new TestEvent(body, null, null), String.class));
+        assertEquals("", HttpEventHelper.getInputBody(new TestEvent(new byte[0], "0", null), String.class));
+    }
+
+    @Test
+    public void testBytes(){
+        final byte[] body = bytes(1000);
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, "1000", null), byte[].class));
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, null, null), byte[].class));
+
+        final ByteBuffer buffer = HttpEventHelper.getInputBody(new TestEvent(body, "1000", null), ByteBuffer.class);
+        assertEquals(1000, buffer.remaining());
+        assertEquals(ByteBuffer.wrap(body), buffer);
+        assertEquals(ByteBuffer.wrap(body), HttpEventHelper.getInputBody(new TestEvent(body, null, null), ByteBuffer.class));
+    }
+
+    @Test
+    public void testReadBody() throws IOException {
+        final byte[] body = bytes(100);
+        assertArrayEquals(body, HttpEventHelper.readBody(trickle(body), 100)); // short reads are continued
+        assertArrayEquals(body, HttpEventHelper.readBody(trickle(body), -1));
+        assertArrayEquals(new byte[0], HttpEventHelper.readBody(trickle(new byte[0]), 0));
+    }
+
+    // the body is read as it is, whatever the Content-Length says
+    @Test
+    public void testWrongContentLength() throws IOException {
+        final byte[] body = bytes(100);
+        assertArrayEquals(body, HttpEventHelper.readBody(trickle(body), 10)); // longer than declared
+        assertArrayEquals(body, HttpEventHelper.readBody(trickle(body), 1000)); // shorter than declared
+        assertArrayEquals(body, HttpEventHelper.readBody(trickle(body), 0));
+
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, "10", null), byte[].class));
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, "1000", null), byte[].class));
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, "abc", null), byte[].class));
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, "-1", null), byte[].class));
+    }
+
+    @Test
+    public void testContentLength(){
+        assertEquals(100, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "100", null)));
+        assertEquals(0, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "0", null)));
+        assertEquals(-1, HttpEventHelper.getContentLength(new TestEvent(new byte[0], null, null)));
+        assertEquals(-1, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "abc", null)));
+        assertEquals(-1, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "-5", null)));
+        assertEquals(-1, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "99999999999", null)));
+    }
+
+    // a declared length over 16MB isn't trusted for the allocation
+    @Test
+    public void testMaxPreallocate(){
+        final int max = 16 * 1024 * 1024;
+        assertEquals(max, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "" + max, null)));
+        assertEquals(-1, HttpEventHelper.getContentLength(new TestEvent(new byte[0], "" + (max + 1), null)));
+
+        // not preallocated, and still read
+        final byte[] body = bytes(10);
+        assertArrayEquals(body, HttpEventHelper.getInputBody(new TestEvent(body, "" + Integer.MAX_VALUE, null), byte[].class));
+    }
+
+    @Test
+    public void testCharset(){
+        assertEquals(StandardCharsets.UTF_8, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, null)));
+        assertEquals(StandardCharsets.UTF_8, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, "text/plain")));
+        assertEquals(StandardCharsets.ISO_8859_1, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, "text/plain; charset=ISO-8859-1")));
+        assertEquals(StandardCharsets.ISO_8859_1, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, "text/plain;Charset=\"iso-8859-1\"")));
+        assertEquals(StandardCharsets.UTF_16BE, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, "text/plain; format=flowed; charset=UTF-16BE")));
+        assertEquals(StandardCharsets.UTF_8, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, "text/plain; charset=no-such-charset")));
+        assertEquals(StandardCharsets.UTF_8, HttpEventHelper.getCharset(new TestEvent(new byte[0], null, "text/plain; charset=")));
+
+        // a String body is decoded by the charset
+        final byte[] latin1 = "caf\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals("caf\u00e9", HttpEventHelper.getInputBody(new TestEvent(latin1, "4", "text/plain; charset=ISO-8859-1"), String.class));
+        final byte[] utf16 = "\u3042".getBytes(StandardCharsets.UTF_16BE);
+        assertEquals("\u3042", HttpEventHelper.getInputBody(new TestEvent(utf16, null, "text/plain; charset=UTF-16BE"), String.class));
+    }
+
+}
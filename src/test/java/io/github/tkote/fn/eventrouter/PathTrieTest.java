@@ -0,0 +1,62 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class PathTrieTest {
+
+    private static List<String> prefixesOf(PathTrie<String> trie, CharSequence s){
+        final List<String> out = new ArrayList<>();
+        trie.collectPrefixesOf(s, out);
+        return out;
+    }
+
+    @Test
+    public void testCollectPrefixesOf(){
+        final PathTrie<String> trie = new PathTrie<>();
+        assertTrue(trie.isEmpty());
+        trie.put("/api/", "api");
+        trie.put("/api/v1/", "v1");
+        trie.put("/apx", "apx");
+        trie.put("", "root");
+        assertEquals(4, trie.size());
+
+        assertEquals(List.of("root", "api", "v1"), prefixesOf(trie, "/api/v1/users"));
+        assertEquals(List.of("root", "api"), prefixesOf(trie, "/api/v2"));
+        assertEquals(List.of("root", "apx"), prefixesOf(trie, "/apx/y"));
+        assertEquals(List.of("root"), prefixesOf(trie, "/ap"));
+        assertEquals(List.of("root"), prefixesOf(trie, ""));
+    }
+
+    @Test
+    public void testEdgeSplit(){
+        final PathTrie<String> trie = new PathTrie<>();
+        trie.put("/abc", "abc");
+        trie.put("/abd", "abd"); // splits "/abc" at "/ab"
+        trie.put("/ab", "ab"); // lands on the split node
+        trie.put("/a", "a"); // splits again
+        trie.put("/abd", "abd2"); // same key, both values kept
+        assertEquals(5, trie.size());
+
+        assertEquals(List.of("a", "ab", "abd", "abd2"), prefixesOf(trie, "/abd/x"));
+        assertEquals(List.of("a", "ab", "abc"), prefixesOf(trie, "/abc"));
+        assertEquals(List.of("a", "ab"), prefixesOf(trie, "/abx"));
+        assertEquals(List.of("a"), prefixesOf(trie, "/a"));
+        assertEquals(List.of(), prefixesOf(trie, "/"));
+    }
+
+    @Test
+    public void testReversedKeys(){
+        // RouteTable looks up suffixes with reversed keys
+        final PathTrie<String> trie = new PathTrie<>();
+        trie.put(new StringBuilder(".json").reverse().toString(), "json");
+        trie.put(new StringBuilder("/data.json").reverse().toString(), "data");
+        assertEquals(List.of("json", "data"), prefixesOf(trie, new StringBuilder("/v1/data.json").reverse()));
+        assertEquals(List.of("json"), prefixesOf(trie, new StringBuilder("/v1/meta.json").reverse()));
+        assertEquals(List.of(), prefixesOf(trie, new StringBuilder("/v1/data.xml").reverse()));
+    }
+
+}
@@ -0,0 +1,144 @@
+package io.github.tkote.fn.eventrouter;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class RouteTableTest {
+
+    // the handler method of all the test routes
+    public String handle(){
+        return "";
+    }
+
+    private EventRouter.Handler handler(String method, String path) throws Exception {
+        final FnHttpEvent annotation = new FnHttpEvent(){
+            public String method(){ return method; }
+            public String path(){ return path; }
+            public String outputType(){ return "json"; }
+            public String value(){ return ""; }
+            public Class<? extends Annotation> annotationType(){ return FnHttpEvent.class; }
+        };
+        return new EventRouter.Handler(this, RouteTableTest.class.getMethod("handle"), annotation);
+    }
+
+    private static void assertKind(RouteTable.Kind kind, String literal, String path){
+        final RouteTable.PathPattern pp = RouteTable.analyze(path);
+        assertEquals(path, kind, pp.kind);
+        assertEquals(path, literal, pp.literal);
+    }
+
+    @Test
+    public void testAnalyze(){
+        assertKind(RouteTable.Kind.EXACT, "/hello", "/hello");
+        assertKind(RouteTable.Kind.EXACT, "/hello", "^/hello$");
+        assertKind(RouteTable.Kind.PREFIX, "/api/", "/api/.*");
+        assertKind(RouteTable.Kind.SUFFIX, "/hello", ".*/hello");
+        assertKind(RouteTable.Kind.SUFFIX, ".json", ".*\\.json");
+
+        // escaped meta characters are literals, escaped letters are classes
+        assertKind(RouteTable.Kind.EXACT, "/a.b", "/a\\.b");
+        assertKind(RouteTable.Kind.EXACT, "/a{b}", "/a\\{b\\}");
+        assertKind(RouteTable.Kind.EXACT, "/price$", "/price\\$");
+        assertKind(RouteTable.Kind.REGEX, null, "/a/\\d+");
+
+        // "{" is a template variable or a quantifier unless escaped
+        assertKind(RouteTable.Kind.REGEX, null, "/users/{id}");
+        assertKind(RouteTable.Kind.REGEX, null, "/a{2}");
+
+        assertKind(RouteTable.Kind.REGEX, null, ".*/files/.*");
+        assertKind(RouteTable.Kind.REGEX, null, "/a/.*/b");
+        assertKind(RouteTable.Kind.REGEX, null, "/x|/y");
+        assertKind(RouteTable.Kind.REGEX, null, "/a.b");
+    }
+
+    @Test
+    public void testFindSameAsRegexScan() throws Exception {
+        final String[][] routes = {
+            {"GET", "/hello"}, {"GET", "/hello/.*"}, {"ANY", ".*/hello"}, {"POST", "/hello"},
+            {"GET", "/api/.*"}, {"GET", "/api/v1/.*"}, {"ANY", ".*\\.json"}, {"GET", ".*/data\\.json"},
+            {"GET", "/users/{id}"}, {"GET", "/users/{id:[0-9]+}/items"}, {"ANY", ".*/files/.*"},
+            {"GET", "/a\\.b"}, {"GET", "/a.b"}, {"POST", "/x|/y"}, {"get", "/lower"}, {"GET", "/a{2}"},
+        };
+        final RouteTable table = new RouteTable();
+        final List<EventRouter.Handler> handlers = new ArrayList<>();
+        for(String[] route : routes){
+            final EventRouter.Handler handler = handler(route[0], route[1]);
+            handlers.add(handler);
+            table.add(handler);
+        }
+        table.freeze();
+
+        final String[] paths = {
+            "/hello", "/hello/world", "/foo/hello", "/api/", "/api/v1/users", "/api/v1/x.json", "/data.json",
+            "/v1/data.json", "/users/42", "/users/42/items", "/users/ab/items", "/files/a/b", "/a/files/b",
+            "/a.b", "/aXb", "/x", "/y", "/lower", "/aa", "", "/",
+        };
+        for(String method : new String[]{"GET", "POST", "PUT", "ANY", "get"}){
+            for(String path : paths){
+                // the linear scan over all the handlers, as before the table
+                final List<EventRouter.Handler> expected = new ArrayList<>();
+                for(EventRouter.Handler handler : handlers){
+                    final String m = handler.annotation.method();
+                    if((m.equalsIgnoreCase(method) || m.equalsIgnoreCase(RouteTable.ANY)) && handler.pattern.matcher(path).matches()){
+                        expected.add(handler);
+                    }
+                }
+                final List<EventRouter.Handler> found = table.find(method, path);
+                assertEquals(method + " " + path, expected.size(), found.size());
+                assertEquals(method + " " + path, new HashSet<>(expected), new HashSet<>(found));
+            }
+        }
+    }
+
+    @Test
+    public void testPathParams() throws Exception {
+        final RouteTable table = new RouteTable();
+        table.add(handler("GET", "/users/{id:[0-9]+}/items/{item}"));
+        table.freeze();
+        final Map<String, String> pathParams = new HashMap<>();
+        assertEquals(1, table.find("GET", "/users/42/items/abc", pathParams).size());
+        assertEquals(Map.of("id", "42", "item", "abc"), pathParams);
+        assertEquals(0, table.find("GET", "/users/x/items/abc").size());
+    }
+
+    // "options".toUpperCase() is "OPT\u0130ONS" in a Turkish locale
+    @Test
+    public void testMethodLocale() throws Exception {
+        final Locale saved = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try{
+            final RouteTable table = new RouteTable();
+            table.add(handler("options", "/hello"));
+            table.add(handler("PATCH", "/hello"));
+            table.freeze();
+            assertEquals(1, table.find("OPTIONS", "/hello").size());
+            assertEquals(1, table.find("options", "/hello").size());
+            assertEquals(1, table.find("patch", "/hello").size());
+        }finally{
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void testFrozen() throws Exception {
+        final RouteTable table = new RouteTable().freeze();
+        assertTrue(table.isFrozen());
+        try{
+            table.add(handler("GET", "/hello"));
+            fail();
+        }catch(IllegalStateException e){
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+
+@FnBean
+public class Budget{
+
+    public static final AtomicInteger calls = new AtomicInteger();
+
+    // sleeps within the budget, then fails with 504 if it is used up
+    @FnHttpEvent(method = "GET", path = ".*/budget", outputType = "text")
+    public String budget(Deadline deadline, @FnQueryParam(value = "sleep", defaultValue = "0") long sleep) throws InterruptedException {
+        calls.incrementAndGet();
+        TimeUnit.MILLISECONDS.sleep(Math.min(sleep, deadline.remainingMillis()));
+        deadline.check();
+        return "calls=" + calls.get();
+    }
+
+}
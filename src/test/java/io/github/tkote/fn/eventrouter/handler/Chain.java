@@ -0,0 +1,47 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import com.fnproject.fn.api.RuntimeContext;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnInit;
+import io.github.tkote.fn.eventrouter.annotation.FnInject;
+import io.github.tkote.fn.eventrouter.annotation.FnWarmup;
+
+@FnBean
+public class Chain{
+
+    @FnBean
+    public static class Dependency{
+        private volatile boolean ready = false;
+
+        @FnInit
+        public void onInit() throws InterruptedException {
+            Thread.sleep(50);
+            ready = true;
+        }
+    }
+
+    @FnInject
+    private Dependency dependency;
+
+    private boolean dependencyReady;
+    private int warmups = 0;
+
+    @FnInit
+    public void onInit() {
+        dependencyReady = dependency.ready;
+    }
+
+    @FnWarmup
+    public void warmUp(RuntimeContext rctx) throws InterruptedException {
+        Thread.sleep(Long.parseLong(rctx.getConfiguration().getOrDefault("TEST_WARMUP_SLEEP", "0")));
+        warmups++;
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/chain", outputType = "text")
+    public String chain() {
+        return "dependencyReady=" + dependencyReady + ",lazyInits=" + Lazy.inits.get() + ",warmups=" + warmups;
+    }
+
+}
@@ -0,0 +1,22 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.nio.charset.StandardCharsets;
+
+import io.github.tkote.fn.eventrouter.StreamingOutput;
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+
+@FnBean
+public class Download{
+
+    @FnHttpEvent(method = "GET", path = ".*/download", outputType = "text")
+    public StreamingOutput download(@FnQueryParam(value = "lines", defaultValue = "3") int lines) {
+        return out -> {
+            for(int i = 0 ; i < lines ; i++){
+                out.write(("line" + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,35 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.github.tkote.fn.eventrouter.FanOut;
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+
+@FnBean
+public class Fan{
+
+    @FnHttpEvent(method = "GET", path = ".*/fanout", outputType = "text")
+    public String fanOut(FanOut fanOut, @FnQueryParam(value = "n", defaultValue = "4") int n,
+            @FnQueryParam(value = "fail", defaultValue = "-1") int fail) throws Exception {
+        final List<Callable<Integer>> calls = new ArrayList<>();
+        for(int i = 0 ; i < n ; i++){
+            final int id = i;
+            calls.add(() -> {
+                TimeUnit.MILLISECONDS.sleep(id == fail ? 10 : 200);
+                if(id == fail) throw new HttpStatusException(502, "Bad Gateway - call " + id);
+                return id;
+            });
+        }
+        final long start = System.nanoTime();
+        final List<Integer> results = fanOut.all(calls);
+        final boolean concurrent = System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200L * n);
+        return "results=" + results + ",concurrent=" + concurrent;
+    }
+
+}
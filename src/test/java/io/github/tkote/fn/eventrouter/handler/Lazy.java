@@ -0,0 +1,24 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnInit;
+
+@FnBean(lazy = true)
+public class Lazy{
+
+    public static final AtomicInteger inits = new AtomicInteger();
+
+    @FnInit
+    public void onInit() {
+        inits.incrementAndGet();
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/lazy", outputType = "text")
+    public String lazy() {
+        return "inits=" + inits.get();
+    }
+
+}
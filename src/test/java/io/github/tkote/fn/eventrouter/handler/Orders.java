@@ -0,0 +1,40 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHeaderParam;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnPathParam;
+import io.github.tkote.fn.eventrouter.annotation.FnQueryParam;
+
+@FnBean
+public class Orders{
+
+    public static class Line{
+        public String item;
+        public int count;
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/orders/{id:[0-9]+}/items/{item}")
+    public Map<String, Object> getItem(@FnPathParam("id") long id, @FnPathParam("item") String item,
+            @FnQueryParam(value = "count", defaultValue = "1") int count, @FnHeaderParam("X-Client") String client) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("item", item);
+        map.put("count", count);
+        map.put("client", client);
+        return map;
+    }
+
+    @FnHttpEvent(method = "POST", path = ".*/orders")
+    public Map<String, Object> create(List<Line> lines) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("lines", lines.size());
+        map.put("count", lines.stream().mapToInt(l -> l.count).sum());
+        return map;
+    }
+
+}
@@ -0,0 +1,30 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+
+@FnBean
+public class Upload{
+
+    @FnHttpEvent(method = "POST", path = ".*/upload", outputType = "text")
+    public String upload(InputStream in) throws IOException {
+        final byte[] buf = new byte[256];
+        long size = 0;
+        int len;
+        while(-1 != (len = in.read(buf))){
+            size += len;
+        }
+        return "size=" + size;
+    }
+
+    @FnHttpEvent(method = "POST", path = ".*/lines", outputType = "text")
+    public String lines(Reader reader) throws IOException {
+        return "lines=" + new BufferedReader(reader).lines().count();
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.github.tkote.fn.eventrouter.handler;
+
+import java.util.function.Supplier;
+
+import com.fnproject.fn.api.RuntimeContext;
+
+import io.github.tkote.fn.eventrouter.annotation.FnBean;
+import io.github.tkote.fn.eventrouter.annotation.FnHttpEvent;
+import io.github.tkote.fn.eventrouter.annotation.FnInject;
+
+@FnBean
+public class Wiring{
+
+    public interface Greeting{
+        String greet(String name);
+    }
+
+    @FnBean
+    public static class Hello implements Greeting{
+        public String greet(String name){
+            return "Hello, " + name;
+        }
+    }
+
+    private final Greeting greeting;
+    private final Chain.Dependency dependency;
+    private Supplier<Lazy> lazy;
+    private RuntimeContext rctx;
+
+    @FnInject
+    public Wiring(Greeting greeting, Chain.Dependency dependency){
+        this.greeting = greeting;
+        this.dependency = dependency;
+    }
+
+    @FnInject
+    public void setLazy(Supplier<Lazy> lazy, RuntimeContext rctx){
+        this.lazy = lazy;
+        this.rctx = rctx;
+    }
+
+    @FnHttpEvent(method = "GET", path = ".*/wiring", outputType = "text")
+    public String wiring() {
+        // the provider is not called here, so that Lazy stays uninitialized
+        return greeting.greet("wiring") + ",dependency=" + (null != dependency)
+            + ",provider=" + (null != lazy) + ",rctx=" + (null != rctx);
+    }
+
+}
@@ -0,0 +1,155 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class AsyncHandlerTest {
+
+    private static final String PREFIX = AsyncHandler.class.getName() + ".";
+    private static final String NL = System.lineSeparator();
+
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final PrintStream errStream = new PrintStream(err, true);
+
+    // sets the handler properties, the others are kept
+    private static void configure(String properties) throws IOException {
+        LogManager.getLogManager().updateConfiguration(
+            new ByteArrayInputStream(properties.getBytes(StandardCharsets.ISO_8859_1)),
+            key -> (o, n) -> key.startsWith(PREFIX) ? n : o);
+    }
+
+    @After
+    public void resetConfiguration() throws IOException {
+        configure("");
+    }
+
+    // the handler writes to System.err at the time it is created
+    private AsyncHandler newHandler(){
+        final PrintStream saved = System.err;
+        System.setErr(errStream);
+        try{
+            return new AsyncHandler();
+        }finally{
+            System.setErr(saved);
+        }
+    }
+
+    private String output(){
+        return new String(err.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // formats the message; "slow" waits for release on the worker thread
+    private static class TestFormatter extends Formatter{
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String format(LogRecord record){
+            if("slow".equals(record.getMessage())){
+                entered.countDown();
+                try{
+                    release.await(5, TimeUnit.SECONDS);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return record.getMessage() + NL;
+        }
+    }
+
+    @Test
+    public void testDropped() throws Exception {
+        configure(PREFIX + "capacity=2\n" + PREFIX + "policy=DROP\n");
+        final AsyncHandler handler = newHandler();
+        final TestFormatter formatter = new TestFormatter();
+        handler.setFormatter(formatter);
+        try{
+            handler.publish(new LogRecord(Level.INFO, "slow"));
+            assertTrue(formatter.entered.await(5, TimeUnit.SECONDS));
+            for(int i = 1 ; i <= 4 ; i++){
+                handler.publish(new LogRecord(Level.INFO, "r" + i)); // r3, r4 are dropped
+            }
+            formatter.release.countDown();
+            handler.flush();
+            assertEquals("slow" + NL + "[2 log records dropped]" + NL + "r1" + NL + "r2" + NL, output());
+        }finally{
+            handler.close();
+        }
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        configure(PREFIX + "capacity=2\n" + PREFIX + "policy=BLOCK\n" + PREFIX + "batch=3\n");
+        final AsyncHandler handler = newHandler();
+        handler.setFormatter(new TestFormatter());
+        final StringBuilder expected = new StringBuilder();
+        for(int i = 0 ; i < 100 ; i++){
+            handler.publish(new LogRecord(Level.INFO, "r" + i));
+            expected.append("r" + i + NL);
+        }
+        // close writes the buffered records
+        handler.close();
+        assertEquals(expected.toString(), output());
+    }
+
+    @Test
+    public void testLevel() throws Exception {
+        configure(PREFIX + "level=WARNING\n");
+        final AsyncHandler handler = newHandler();
+        handler.setFormatter(new TestFormatter());
+        handler.publish(new LogRecord(Level.INFO, "info"));
+        handler.publish(new LogRecord(Level.WARNING, "warning"));
+        handler.close();
+        assertEquals("warning" + NL, output());
+    }
+
+    // batches larger than any buffer, from the handler and the access log on the same stream - no line is split
+    @Test
+    public void testNotInterleaved() throws Exception {
+        configure(PREFIX + "policy=BLOCK\n" + PREFIX + "batch=1000\n");
+        final AsyncHandler handler = newHandler();
+        handler.setFormatter(new TestFormatter());
+        final AsyncLineWriter accessLog = new AsyncLineWriter(errStream, 100000, "test-access-log");
+        final String padding = "x".repeat(100);
+        final Thread logger = new Thread(() -> {
+            for(int i = 0 ; i < 5000 ; i++) handler.publish(new LogRecord(Level.INFO, "log-" + i + "-" + padding));
+        });
+        logger.start();
+        for(int i = 0 ; i < 5000 ; i++){
+            assertTrue(accessLog.write("access-" + i + "-" + padding));
+        }
+        logger.join();
+        handler.close();
+        accessLog.close();
+
+        final String[] lines = output().split("\r?\n");
+        assertEquals(10000, lines.length);
+        for(String line : lines){
+            assertTrue(line, line.matches("(log|access)-\\d+-" + padding));
+        }
+    }
+
+    @Test
+    public void testThreadName() throws Exception {
+        final AsyncHandler handler = newHandler();
+        handler.setFormatter(new JsonFormatter());
+        final Thread publisher = new Thread(() -> handler.publish(new LogRecord(Level.INFO, "hello")), "publisher-1");
+        publisher.start();
+        publisher.join();
+        handler.close();
+        assertTrue(output(), output().contains("\"thread\":\"publisher-1\",\"message\":\"hello\""));
+    }
+
+}
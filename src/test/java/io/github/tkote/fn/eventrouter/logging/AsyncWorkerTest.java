@@ -0,0 +1,165 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class AsyncWorkerTest {
+
+    // collects the items; the first batch waits for release so that the queue can be filled
+    private static class Sink{
+        private final List<Integer> items = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private void accept(List<Integer> batch){
+            entered.countDown();
+            try{
+                release.await(5, TimeUnit.SECONDS);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            items.addAll(batch);
+        }
+    }
+
+    @Test
+    public void testDrop() throws Exception {
+        final Sink sink = new Sink();
+        final AsyncWorker<Integer> worker = new AsyncWorker<>("test-drop", 2, AsyncWorker.Policy.DROP, 10, sink::accept);
+        try{
+            assertTrue(worker.submit(0));
+            assertTrue(sink.entered.await(5, TimeUnit.SECONDS)); // 0 is taken, the worker waits
+
+            assertTrue(worker.submit(1));
+            assertTrue(worker.submit(2));
+            assertFalse(worker.submit(3)); // full
+            assertFalse(worker.submit(4));
+            assertEquals(2, worker.takeDropped());
+            assertEquals(0, worker.takeDropped());
+
+            sink.release.countDown();
+            worker.flush(5000);
+            assertEquals(List.of(0, 1, 2), sink.items);
+        }finally{
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        final Sink sink = new Sink();
+        final AsyncWorker<Integer> worker = new AsyncWorker<>("test-block", 1, AsyncWorker.Policy.BLOCK, 10, sink::accept);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try{
+            assertTrue(worker.submit(0));
+            assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+            assertTrue(worker.submit(1));
+
+            // full - the producer waits for space
+            final Future<Boolean> blocked = executor.submit(() -> worker.submit(2));
+            try{
+                blocked.get(200, TimeUnit.MILLISECONDS);
+                fail();
+            }catch(TimeoutException e){
+                // still waiting
+            }
+
+            sink.release.countDown();
+            assertTrue(blocked.get(5, TimeUnit.SECONDS));
+            worker.flush(5000);
+            assertEquals(List.of(0, 1, 2), sink.items);
+            assertEquals(0, worker.takeDropped());
+        }finally{
+            executor.shutdownNow();
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testBlockedProducerGivesUpOnClose() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final AsyncWorker<Integer> worker = new AsyncWorker<>("test-block-close", 1, AsyncWorker.Policy.BLOCK, 10, batch -> {
+            if(0 == entered.getCount()) return; // only the first batch is slow
+            entered.countDown();
+            try{
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            }catch(InterruptedException e){
+                // closed
+            }
+        });
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try{
+            assertTrue(worker.submit(0));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertTrue(worker.submit(1));
+            final Future<Boolean> blocked = executor.submit(() -> worker.submit(2));
+            Thread.sleep(100);
+            worker.close();
+            assertFalse(blocked.get(5, TimeUnit.SECONDS));
+            assertEquals(1, worker.takeDropped());
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<>());
+        final AsyncWorker<Integer> worker = new AsyncWorker<>("test-flush", 100, AsyncWorker.Policy.DROP, 3, batch -> {
+            try{
+                Thread.sleep(10); // slow sink
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            items.addAll(batch);
+        });
+        try{
+            for(int i = 0 ; i < 20 ; i++){
+                assertTrue(worker.submit(i));
+            }
+            worker.flush(5000);
+            assertEquals(20, items.size());
+
+            // nothing to wait for
+            final long start = System.nanoTime();
+            worker.flush(5000);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        }finally{
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final Sink sink = new Sink();
+        final AsyncWorker<Integer> worker = new AsyncWorker<>("test-close", 10, AsyncWorker.Policy.DROP, 10, sink::accept);
+        assertTrue(worker.submit(0));
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        for(int i = 1 ; i < 5 ; i++){
+            assertTrue(worker.submit(i));
+        }
+        sink.release.countDown();
+
+        // the queued items are processed before the worker stops
+        worker.close();
+        assertEquals(List.of(0, 1, 2, 3, 4), sink.items);
+
+        // submitted after close - dropped
+        assertFalse(worker.submit(5));
+        assertEquals(1, worker.takeDropped());
+        worker.close();
+        worker.flush(5000);
+        assertEquals(5, sink.items.size());
+    }
+
+}
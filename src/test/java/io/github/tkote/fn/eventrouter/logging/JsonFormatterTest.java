@@ -0,0 +1,70 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.time.Instant;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class JsonFormatterTest {
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    private static LogRecord record(Level level, String message){
+        final LogRecord record = new LogRecord(level, message);
+        record.setInstant(Instant.ofEpochMilli(1648771200123L));
+        record.setLoggerName("test.logger");
+        return record;
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        final JsonFormatter formatter = new JsonFormatter();
+        final LogRecord record = record(Level.INFO, "hello {0}");
+        record.setParameters(new Object[]{ "fn" });
+        final String line = formatter.format(record);
+        assertTrue(line, line.startsWith("{\"time\":\"2022-04-01T00:00:00.123Z\",\"level\":\"INFO\",\"logger\":\"test.logger\","));
+        assertTrue(line, line.endsWith("}\n"));
+        assertEquals(1, line.split("\n").length);
+
+        final JsonNode json = om.readTree(line);
+        assertEquals(SimpleFormatter.getHostname(), json.get("host").asText());
+        assertEquals(Thread.currentThread().getName(), json.get("thread").asText());
+        assertEquals("hello fn", json.get("message").asText());
+        assertNull(json.get("thrown"));
+
+        // the name of the logging thread given by AsyncHandler
+        assertEquals("worker-1", om.readTree(formatter.format(record, "worker-1")).get("thread").asText());
+    }
+
+    @Test
+    public void testEscape() throws Exception {
+        final String message = "quote\" backslash\\ slash/ newline\n return\r tab\t bell\u0007 nul\u0000 unicode\u3042";
+        final LogRecord record = record(Level.SEVERE, message);
+        record.setLoggerName("logger\"name");
+        final String line = new JsonFormatter().format(record, "thread\\\n");
+        assertTrue(line, line.contains("quote\\\" backslash\\\\ slash/ newline\\n return\\r tab\\t bell\\u0007 nul\\u0000 unicode\u3042"));
+
+        final JsonNode json = om.readTree(line);
+        assertEquals(message, json.get("message").asText());
+        assertEquals("logger\"name", json.get("logger").asText());
+        assertEquals("thread\\\n", json.get("thread").asText());
+    }
+
+    @Test
+    public void testThrown() throws Exception {
+        final LogRecord record = record(Level.WARNING, "failed");
+        record.setThrown(new IllegalStateException("boom \"quoted\""));
+        final String line = new JsonFormatter().format(record);
+        assertEquals(1, line.split("\n").length);
+
+        final String thrown = om.readTree(line).get("thrown").asText();
+        assertTrue(thrown, thrown.startsWith("java.lang.IllegalStateException: boom \"quoted\"" + System.lineSeparator() + "\tat "));
+        assertTrue(thrown, thrown.contains(JsonFormatterTest.class.getName()));
+    }
+
+}
@@ -0,0 +1,124 @@
+package io.github.tkote.fn.eventrouter.logging;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class SimpleFormatterTest {
+
+    private static final String FORMAT_PROPERTY = "java.util.logging.SimpleFormatter.format";
+
+    private String savedFormat;
+
+    @Before
+    public void saveFormat(){
+        savedFormat = System.getProperty(FORMAT_PROPERTY);
+    }
+
+    @After
+    public void restoreFormat(){
+        if(Objects.isNull(savedFormat)){
+            System.clearProperty(FORMAT_PROPERTY);
+        }else{
+            System.setProperty(FORMAT_PROPERTY, savedFormat);
+        }
+    }
+
+    // the JDK formatter reads the pattern when it is created
+    private static java.util.logging.SimpleFormatter jdk(String format){
+        System.setProperty(FORMAT_PROPERTY, format);
+        return new java.util.logging.SimpleFormatter();
+    }
+
+    private static LogRecord record(long millis, Level level, String message, Object... params){
+        final LogRecord record = new LogRecord(level, message);
+        record.setInstant(Instant.ofEpochMilli(millis));
+        record.setLoggerName("test.logger");
+        record.setSourceClassName("test.Source");
+        record.setSourceMethodName("run");
+        record.setParameters(params);
+        return record;
+    }
+
+    private static List<LogRecord> records(){
+        final LogRecord noSource = record(1648771200123L, Level.WARNING, "no source");
+        noSource.setSourceClassName(null);
+        final LogRecord thrown = record(1648771200123L, Level.SEVERE, "failed");
+        thrown.setThrown(new IllegalStateException("boom"));
+        return List.of(
+            record(1648771200123L, Level.INFO, "hello {0} and {1}", "fn", 42),
+            record(1649000000007L, Level.FINE, "100%"),
+            noSource, thrown);
+    }
+
+    @Test
+    public void testSameAsJdk(){
+        for(String format : List.of(
+                "%4$s %3$s: %5$s%6$s%n",
+                "%1$tY.%1$tm.%1$td %1$tH:%1$tM:%1$tS.%1$tL %4$s %2$s: %5$s%6$s%n",
+                "[%1$ty/%1$te %1$s] 100%% %3$s%n%5$s")){
+            assertNotNull(format, SimpleFormatter.parse(format));
+            final java.util.logging.SimpleFormatter expected = jdk(format);
+            final SimpleFormatter formatter = new SimpleFormatter(format);
+            for(LogRecord record : records()){
+                assertEquals(format, expected.format(record), formatter.format(record));
+            }
+        }
+    }
+
+    @Test
+    public void testParse(){
+        assertNotNull(SimpleFormatter.parse(""));
+        assertNotNull(SimpleFormatter.parse("plain text"));
+        assertNotNull(SimpleFormatter.parse("%6$s%%%n"));
+        assertNull(SimpleFormatter.parse("%4$-7s")); // width
+        assertNull(SimpleFormatter.parse("%1$tb")); // month name
+        assertNull(SimpleFormatter.parse("%2$tY")); // time of other than argument 1
+        assertNull(SimpleFormatter.parse("%7$s"));
+        assertNull(SimpleFormatter.parse("%s"));
+        assertNull(SimpleFormatter.parse("%5$d"));
+        assertNull(SimpleFormatter.parse("trailing %"));
+        assertNull(SimpleFormatter.parse("%1$t"));
+    }
+
+    @Test
+    public void testTimeCache(){
+        final String format = "%1$tH:%1$tM:%1$tS.%1$tL %5$s%n";
+        final java.util.logging.SimpleFormatter expected = jdk(format);
+        final SimpleFormatter formatter = new SimpleFormatter(format);
+        final long millis = 1648771200123L;
+        // same millisecond (cached), next millisecond, next second, back again
+        for(long m : new long[]{ millis, millis, millis + 1, millis + 1000, millis }){
+            final LogRecord record = record(m, Level.INFO, "at " + m);
+            assertEquals(expected.format(record), formatter.format(record));
+        }
+    }
+
+    @Test
+    public void testFallback(){
+        // width and month name are not supported - formatted by java.util.logging.SimpleFormatter
+        final String format = "%1$tb %4$-7s %3$s: %5$s%6$s%n";
+        assertNull(SimpleFormatter.parse(format));
+        final java.util.logging.SimpleFormatter expected = jdk(format);
+        final SimpleFormatter formatter = new SimpleFormatter();
+        for(LogRecord record : records()){
+            assertEquals(expected.format(record), formatter.format(record));
+        }
+    }
+
+    @Test
+    public void testHost(){
+        final LogRecord record = record(1648771200123L, Level.INFO, "hello");
+        assertEquals(SimpleFormatter.getHostname() + " INFO hello", new SimpleFormatter("!host! %4$s %5$s").format(record));
+
+        // the fallback replaces it after formatting
+        System.setProperty(FORMAT_PROPERTY, "!host! %4$-4s|%5$s");
+        assertEquals(SimpleFormatter.getHostname() + " INFO|hello", new SimpleFormatter().format(record));
+    }
+
+}
@@ -0,0 +1,105 @@
+package io.github.tkote.fn.eventrouter.resilience;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.tkote.fn.eventrouter.Deadline;
+import io.github.tkote.fn.eventrouter.HttpStatusException;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private static int call(CircuitBreaker breaker, AtomicInteger calls, int status) throws Exception {
+        return breaker.execute(() -> {
+            calls.incrementAndGet();
+            if(0 == status) throw new IOException("Connection refused");
+            return status;
+        }, s -> s >= 500);
+    }
+
+    private static void assertRejected(CircuitBreaker breaker, AtomicInteger calls) throws Exception {
+        final int before = calls.get();
+        try{
+            call(breaker, calls, 200);
+            fail();
+        }catch(HttpStatusException e){
+            assertEquals(503, e.getStatus());
+        }
+        assertEquals(before, calls.get());
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        final CircuitBreaker breaker = new CircuitBreaker("upstream", 50, 4, Duration.ofSeconds(10), Duration.ofMillis(200));
+        final AtomicInteger calls = new AtomicInteger();
+
+        // below minCalls - stays closed
+        assertEquals(200, call(breaker, calls, 200));
+        assertEquals(503, call(breaker, calls, 503));
+        try{
+            call(breaker, calls, 0);
+            fail();
+        }catch(IOException e){
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        }
+
+        // 3 failures of 4 calls - opens and fails fast
+        assertEquals(502, call(breaker, calls, 502));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertRejected(breaker, calls);
+        assertEquals(1, breaker.getRejected());
+
+        // a failed probe opens it again
+        Thread.sleep(250);
+        assertEquals(500, call(breaker, calls, 500));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertRejected(breaker, calls);
+
+        // a successful probe closes it with a fresh window
+        Thread.sleep(250);
+        assertEquals(200, call(breaker, calls, 200));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(503, call(breaker, calls, 503));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testBulkhead() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead("upstream", 2, 0);
+        final CountDownLatch entered = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try{
+            final Future<?> a = executor.submit(() -> bulkhead.execute(() -> { entered.countDown(); return release.await(5, TimeUnit.SECONDS); }, Deadline.NONE));
+            final Future<?> b = executor.submit(() -> bulkhead.execute(() -> { entered.countDown(); return release.await(5, TimeUnit.SECONDS); }, Deadline.NONE));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertEquals(2, bulkhead.getActive());
+
+            // full - rejected without waiting
+            try{
+                bulkhead.execute(() -> "third", Deadline.NONE);
+                fail();
+            }catch(HttpStatusException e){
+                assertEquals(503, e.getStatus());
+            }
+            assertEquals(1, bulkhead.getRejected());
+
+            release.countDown();
+            a.get();
+            b.get();
+            assertEquals(0, bulkhead.getActive());
+            assertEquals("fourth", bulkhead.execute(() -> "fourth", Deadline.NONE));
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+}